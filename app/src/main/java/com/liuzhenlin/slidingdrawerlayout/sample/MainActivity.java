@@ -64,6 +64,9 @@ public class MainActivity extends AppCompatActivity implements SlidingDrawerLayo
         mSlidingDrawerLayout.setContentSensitiveEdgeSize(screenWidth);
         mSlidingDrawerLayout.setStartDrawerWidthPercent(1f - width_dif / (float) screenWidth);
         mSlidingDrawerLayout.addOnDrawerScrollListener(this);
+        // Let the back gesture drive the open drawer closed on T and higher, where
+        // onBackPressed() is no longer called for this activity.
+        mSlidingDrawerLayout.setPredictiveBackEnabled(true);
 //        //  At this activity starting, none of the drawers of SlidingDrawerLayout are available
 //        // as in most cases their measurements are not yet started.
 //        mSlidingDrawerLayout.post(new Runnable() {
@@ -238,11 +241,8 @@ public class MainActivity extends AppCompatActivity implements SlidingDrawerLayo
                     ViewCompat.setBackground(drawer,
                             ContextCompat.getDrawable(this, R.drawable.ic_launcher_background));
                 }
-
-                mListView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
-                break;
-            case SlidingDrawerLayout.SCROLL_STATE_IDLE:
-                mListView.setLayerType(View.LAYER_TYPE_NONE, null);
+                // The content view, with the ListView, is put on a hardware layer by
+                // the layer policy of SlidingDrawerLayout while the drawer is scrolling.
                 break;
         }
     }
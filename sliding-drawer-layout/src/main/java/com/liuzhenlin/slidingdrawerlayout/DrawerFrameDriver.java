@@ -0,0 +1,113 @@
+/*
+ * Created on 2026/10/18.
+ * Copyright © 2026 刘振林. All rights reserved.
+ */
+
+package com.liuzhenlin.slidingdrawerlayout;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * Runs the per-frame work of all the {@link SlidingDrawerLayout}s in the UI thread from one
+ * frame callback posted to the {@link Choreographer}, rather than each of them posting its own,
+ * so that the cost of a frame grows as little as possible with the number of drawers animating
+ * at the same time, e.g., in the rows of a list revealing their actions.
+ * <p>
+ * Like {@link android.view.View#postOnAnimation(Runnable)}, a posted Runnable is run only once,
+ * in the next frame, and is supposed to post itself again to run in the frame after that.
+ * The Runnables are queued in flat arrays reused from frame to frame, so that nothing will be
+ * allocated as they are being posted and run.
+ *
+ * @author 刘振林
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+final class DrawerFrameDriver implements Choreographer.FrameCallback {
+
+    private static DrawerFrameDriver sInstance;
+
+    /** Runnables to be run in the next frame */
+    private Runnable[] mQueue = new Runnable[4];
+    private int mQueueSize;
+
+    /** Runnables being run in the current frame */
+    private Runnable[] mRunning = new Runnable[4];
+    private int mRunningSize;
+
+    private boolean mFrameCallbackPosted;
+
+    /** @return the driver of the UI thread */
+    static DrawerFrameDriver getInstance() {
+        if (sInstance == null) {
+            sInstance = new DrawerFrameDriver();
+        }
+        return sInstance;
+    }
+
+    private DrawerFrameDriver() {
+    }
+
+    /** Causes the given Runnable to be run in the next frame. */
+    void post(Runnable action) {
+        for (int i = 0; i < mQueueSize; i++) {
+            if (mQueue[i] == action) {
+                return;
+            }
+        }
+        if (mQueueSize == mQueue.length) {
+            final Runnable[] queue = new Runnable[mQueueSize * 2];
+            System.arraycopy(mQueue, 0, queue, 0, mQueueSize);
+            mQueue = queue;
+        }
+        mQueue[mQueueSize++] = action;
+
+        if (!mFrameCallbackPosted) {
+            mFrameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /** Removes the given Runnable if it is yet to run. */
+    void remove(Runnable action) {
+        for (int i = 0; i < mQueueSize; i++) {
+            if (mQueue[i] == action) {
+                mQueue[i] = mQueue[--mQueueSize];
+                mQueue[mQueueSize] = null;
+                break;
+            }
+        }
+        // It may also be removed by another one run before it in the current frame.
+        for (int i = 0; i < mRunningSize; i++) {
+            if (mRunning[i] == action) {
+                mRunning[i] = null;
+                break;
+            }
+        }
+        if (mQueueSize == 0 && mFrameCallbackPosted) {
+            mFrameCallbackPosted = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFrameCallbackPosted = false;
+
+        // Swap the queues, so that the Runnables posted while running are run in the next frame.
+        final Runnable[] running = mQueue;
+        mQueue = mRunning;
+        mRunning = running;
+        mRunningSize = mQueueSize;
+        mQueueSize = 0;
+
+        for (int i = 0; i < mRunningSize; i++) {
+            final Runnable action = running[i];
+            if (action != null) {
+                running[i] = null;
+                action.run();
+            }
+        }
+        mRunningSize = 0;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Created on 2026/10/18.
+ * Copyright © 2026 刘振林. All rights reserved.
+ */
+
+package com.liuzhenlin.slidingdrawerlayout;
+
+/**
+ * View-independent state machine behind a sliding drawer host, which holds the scroll state of
+ * the drawers and whether the shown drawer is being animated to open or close, decides how
+ * the drawer released by user is supposed to settle and clamps the positions it scrolls to.
+ * <p>
+ * This class depends on nothing but the plain Java platform, so that the decision logic driving
+ * the drawers can be exercised without any Android framework class involved, while the host,
+ * {@link SlidingDrawerLayout} for example, is left to do the view work the decisions lead to.
+ *
+ * @author 刘振林
+ */
+final class DrawerStateEngine {
+
+    /** No drawer is currently scrolling. */
+    static final int SCROLL_STATE_IDLE = 0;
+
+    /** There is a drawer currently scrolling and being dragged by user. */
+    static final int SCROLL_STATE_TOUCH_SCROLL = 1;
+
+    /** A drawer is currently scrolling but not under outside control. */
+    static final int SCROLL_STATE_AUTO_SCROLL = 1 << 1;
+
+    /** Mask for use with {@link #mState} to get the drawer scroll state. */
+    private static final int SCROLL_STATE_MASK = 0b0000_0011;
+
+    /** If set, the drawer is currently being or scheduled to be opened via the animator. */
+    static final int FLAG_ANIMATING_DRAWER_OPENING = 1 << 2;
+
+    /** If set, the drawer is currently being or scheduled to be closed via the animator. */
+    static final int FLAG_ANIMATING_DRAWER_CLOSURE = 1 << 3;
+
+    private static final int ANIMATING_FLAGS_MASK =
+            FLAG_ANIMATING_DRAWER_OPENING | FLAG_ANIMATING_DRAWER_CLOSURE;
+
+    /** The released drawer does not need to settle as it is already fully opened or closed. */
+    static final int SETTLE_NONE = 0;
+
+    /** The released drawer is supposed to be opened. */
+    static final int SETTLE_OPEN = 1;
+
+    /** The released drawer is supposed to be closed. */
+    static final int SETTLE_CLOSE = 2;
+
+    /**
+     * The scroll percentage at or beyond which a drawer released with no fling is opened,
+     * or otherwise closed.
+     */
+    static final float SETTLE_OPEN_THRESHOLD = 0.5f;
+
+    /** The content view is entirely within its host, with no part of it covered by a drawer. */
+    static final int CONTENT_VISIBLE = 0;
+
+    /** Part of the content view is pushed out of its host by a drawer that covers the part. */
+    static final int CONTENT_PARTIALLY_COVERED = 1;
+
+    /** No part of the content view is left within its host. */
+    static final int CONTENT_OCCLUDED = 2;
+
+    private int mState;
+
+    /** Minimum horizontal velocity to fling the released drawer, in pixels per second */
+    private final float mMinimumFlingVelocity;
+
+    DrawerStateEngine(float minimumFlingVelocity) {
+        if (minimumFlingVelocity < 0) {
+            throw new IllegalArgumentException("The minimum fling velocity must >= 0, " +
+                    "but your is " + minimumFlingVelocity);
+        }
+        mMinimumFlingVelocity = minimumFlingVelocity;
+    }
+
+    /** @return the minimum velocity in pixels per second to fling the released drawer */
+    float getMinimumFlingVelocity() {
+        return mMinimumFlingVelocity;
+    }
+
+    /**
+     * @return the current scroll state of the drawers, one of {@link #SCROLL_STATE_IDLE},
+     *         {@link #SCROLL_STATE_TOUCH_SCROLL} or {@link #SCROLL_STATE_AUTO_SCROLL}
+     */
+    int getScrollState() {
+        return mState & SCROLL_STATE_MASK;
+    }
+
+    /**
+     * Moves the drawers to the given scroll state.
+     *
+     * @return true if the scroll state has changed, in which case the host is supposed to
+     *         dispatch the change.
+     */
+    boolean setScrollState(int state) {
+        if ((state & ~SCROLL_STATE_MASK) != 0 || state == SCROLL_STATE_MASK) {
+            throw new IllegalArgumentException("Unknown scroll state: " + state);
+        }
+        if (state == (mState & SCROLL_STATE_MASK)) {
+            return false;
+        }
+        mState = (mState & ~SCROLL_STATE_MASK) | state;
+        return true;
+    }
+
+    /** @return whether the shown drawer is being or scheduled to be opened via the animator */
+    boolean isAnimatingOpening() {
+        return (mState & FLAG_ANIMATING_DRAWER_OPENING) != 0;
+    }
+
+    /** @return whether the shown drawer is being or scheduled to be closed via the animator */
+    boolean isAnimatingClosure() {
+        return (mState & FLAG_ANIMATING_DRAWER_CLOSURE) != 0;
+    }
+
+    /** @return whether the shown drawer is being or scheduled to be animated in any direction */
+    boolean isAnimating() {
+        return (mState & ANIMATING_FLAGS_MASK) != 0;
+    }
+
+    /** Marks the shown drawer as being animated to open. */
+    void setAnimatingOpening() {
+        mState = (mState & ~FLAG_ANIMATING_DRAWER_CLOSURE) | FLAG_ANIMATING_DRAWER_OPENING;
+    }
+
+    /** Marks the shown drawer as being animated to close. */
+    void setAnimatingClosure() {
+        mState = (mState & ~FLAG_ANIMATING_DRAWER_OPENING) | FLAG_ANIMATING_DRAWER_CLOSURE;
+    }
+
+    /**
+     * @return the animating flags currently set, which can be restored later through
+     *         {@link #setAnimatingFlags(int)}
+     */
+    int getAnimatingFlags() {
+        return mState & ANIMATING_FLAGS_MASK;
+    }
+
+    /** Replaces the animating flags with the ones got from {@link #getAnimatingFlags()}. */
+    void setAnimatingFlags(int flags) {
+        mState = (mState & ~ANIMATING_FLAGS_MASK) | (flags & ANIMATING_FLAGS_MASK);
+    }
+
+    /** Marks the shown drawer as no longer being animated. */
+    void clearAnimatingFlags() {
+        mState &= ~ANIMATING_FLAGS_MASK;
+    }
+
+    /**
+     * Decides how the drawer released by user is supposed to settle, according to the horizontal
+     * velocity of the release and how far the drawer has been opened.
+     *
+     * @param leftDrawer    whether the released drawer is on the left side of its host
+     * @param scrollPercent the current scroll percentage of the drawer
+     * @param xVelocity     the horizontal velocity of the release, in pixels per second
+     * @return one of {@link #SETTLE_NONE}, {@link #SETTLE_OPEN} or {@link #SETTLE_CLOSE}
+     */
+    int resolveSettleAction(boolean leftDrawer, float scrollPercent, float xVelocity) {
+        if (!needsSettling(scrollPercent)) {
+            return SETTLE_NONE;
+        }
+
+        final float openingVelocity = leftDrawer ? xVelocity : -xVelocity;
+        if (openingVelocity >= mMinimumFlingVelocity) {
+            return SETTLE_OPEN;
+        } else if (openingVelocity <= -mMinimumFlingVelocity) {
+            return SETTLE_CLOSE;
+        }
+
+        return scrollPercent >= SETTLE_OPEN_THRESHOLD ? SETTLE_OPEN : SETTLE_CLOSE;
+    }
+
+    /**
+     * @return whether a drawer released at the given scroll percentage needs to settle, i.e.,
+     *         is neither fully opened nor fully closed
+     */
+    static boolean needsSettling(float scrollPercent) {
+        return scrollPercent != 0 && scrollPercent != 1;
+    }
+
+    /**
+     * Decides whether a gesture can be locked as a vertical one, which no drawer will handle.
+     *
+     * @param gestureClaimed whether the gesture has been intercepted by the host or has landed
+     *                       on the content view while a drawer is open
+     * @param scrollPercent  the current scroll percentage of the shown drawer
+     * @param dx             the horizontal distance the pointer has moved since it went down
+     * @param dy             the vertical distance the pointer has moved since it went down
+     * @param touchSlop      the distance the pointer needs to move to start a scroll
+     * @return true if the pointer has moved vertically past the touch slop and more than it has
+     *         horizontally, while the gesture is not claimed and all the drawers are closed
+     */
+    static boolean shouldLockVerticalGesture(
+            boolean gestureClaimed, float scrollPercent, float dx, float dy, float touchSlop) {
+        if (gestureClaimed || scrollPercent > 0) {
+            return false;
+        }
+        final float absDy = Math.abs(dy);
+        return absDy > touchSlop && absDy > Math.abs(dx);
+    }
+
+    /**
+     * Resolves how much of the content view is visible, from how much of it is left within
+     * the bounds of its host compared to when no drawer is open, as the part pushed out of
+     * the bounds is what a drawer covers.
+     *
+     * @param contentLeft  the current left position of the content view
+     * @param contentWidth the width of the content view
+     * @param startLeft    the left position of the content view when no drawer is open
+     * @param parentLeft   the left edge of the space of the host to lay out the content view in
+     * @param parentRight  the right edge of the space of the host to lay out the content view in
+     * @return one of {@link #CONTENT_VISIBLE}, {@link #CONTENT_PARTIALLY_COVERED} or
+     *         {@link #CONTENT_OCCLUDED}
+     */
+    static int resolveContentVisibility(
+            float contentLeft, int contentWidth, int startLeft, int parentLeft, int parentRight) {
+        final float visibleWidth = Math.min(contentLeft + contentWidth, parentRight)
+                - Math.max(contentLeft, parentLeft);
+        if (visibleWidth <= 0) {
+            return CONTENT_OCCLUDED;
+        }
+        final int restingVisibleWidth = Math.min(startLeft + contentWidth, parentRight)
+                - Math.max(startLeft, parentLeft);
+        return visibleWidth < restingVisibleWidth ? CONTENT_PARTIALLY_COVERED : CONTENT_VISIBLE;
+    }
+
+    /**
+     * Clamps the horizontal displacement of a child scrolling between two positions.
+     *
+     * @param left      the current left position of the child
+     * @param dx        the displacement to apply to the child
+     * @param startLeft the left position of the child when the drawer is closed
+     * @param finalLeft the left position of the child when the drawer is fully opened
+     * @return the displacement that keeps the child within its scrollable range
+     */
+    static int clampDx(int left, int dx, int startLeft, int finalLeft) {
+        final int newLeft = Math.max(Math.min(startLeft, finalLeft),
+                Math.min(left + dx, Math.max(startLeft, finalLeft)));
+        return newLeft - left;
+    }
+
+    /**
+     * Like {@link #clampDx(int, int, int, int)}, but for a child positioned in sub-pixels.
+     */
+    static float clampDx(float left, float dx, int startLeft, int finalLeft) {
+        final float newLeft = Math.max(Math.min(startLeft, finalLeft),
+                Math.min(left + dx, Math.max(startLeft, finalLeft)));
+        return newLeft - left;
+    }
+}
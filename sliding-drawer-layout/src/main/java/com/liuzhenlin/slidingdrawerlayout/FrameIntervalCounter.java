@@ -0,0 +1,81 @@
+/*
+ * Created on 2026/10/18.
+ * Copyright © 2026 刘振林. All rights reserved.
+ */
+
+package com.liuzhenlin.slidingdrawerlayout;
+
+/**
+ * Counts the intervals between consecutive frames, keeping their total and maximum, and how
+ * many of them are slow, i.e., longer than one and a half times the expected interval.
+ * <p>
+ * All the state is held in primitive fields, so that nothing will be allocated as frames
+ * are being counted.
+ *
+ * @author 刘振林
+ */
+final class FrameIntervalCounter {
+
+    private int mCount;
+    private long mTotal; // ns
+    private long mMax; // ns
+    private int mSlowCount;
+
+    /** Intervals longer than this many nanoseconds are counted as slow ones. */
+    private long mSlowThreshold = Long.MAX_VALUE;
+
+    /**
+     * Sets the interval in nanoseconds that frames are expected to be produced at, usually
+     * the refresh period of the display.
+     */
+    void setExpectedInterval(long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The expected frame interval must > 0, " +
+                    "but your is " + interval);
+        }
+        mSlowThreshold = interval * 3 / 2;
+    }
+
+    /** Counts the interval in nanoseconds between two consecutive frames. */
+    void addInterval(long interval) {
+        if (interval <= 0) {
+            return;
+        }
+        mCount++;
+        mTotal += interval;
+        if (interval > mMax) {
+            mMax = interval;
+        }
+        if (interval > mSlowThreshold) {
+            mSlowCount++;
+        }
+    }
+
+    /** @return the number of intervals counted */
+    int getCount() {
+        return mCount;
+    }
+
+    /** @return the number of intervals counted as slow ones */
+    int getSlowCount() {
+        return mSlowCount;
+    }
+
+    /** @return the mean of the intervals counted in milliseconds, or 0 if none is counted */
+    float getAverageMillis() {
+        return mCount == 0 ? 0 : mTotal / (mCount * 1e6f);
+    }
+
+    /** @return the longest interval counted in milliseconds */
+    float getMaxMillis() {
+        return mMax / 1e6f;
+    }
+
+    /** Discards all the intervals counted. */
+    void reset() {
+        mCount = 0;
+        mTotal = 0;
+        mMax = 0;
+        mSlowCount = 0;
+    }
+}
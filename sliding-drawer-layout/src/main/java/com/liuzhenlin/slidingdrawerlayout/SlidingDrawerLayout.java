@@ -5,10 +5,9 @@
 
 package com.liuzhenlin.slidingdrawerlayout;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
 import android.animation.ValueAnimator;
 import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
 import android.content.res.TypedArray;
@@ -18,32 +17,47 @@ import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.TypedValue;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.Gravity;
+import android.view.InputDevice;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
-import android.view.VelocityTracker;
+import android.view.SurfaceView;
+import android.view.TextureView;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewParent;
 import android.view.ViewStub;
 import android.view.ViewTreeObserver;
+import android.view.WindowManager;
 import android.view.accessibility.AccessibilityEvent;
+import android.view.animation.AnimationUtils;
 import android.view.animation.Interpolator;
+import android.webkit.WebView;
+import android.window.BackEvent;
+import android.window.OnBackAnimationCallback;
+import android.window.OnBackInvokedCallback;
+import android.window.OnBackInvokedDispatcher;
 
 import androidx.annotation.ColorInt;
 import androidx.annotation.FloatRange;
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.os.ParcelableCompat;
 import androidx.core.os.ParcelableCompatCreatorCallbacks;
 import androidx.core.view.AccessibilityDelegateCompat;
 import androidx.core.view.GravityCompat;
+import androidx.core.view.NestedScrollingParent3;
+import androidx.core.view.NestedScrollingParentHelper;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
 import androidx.customview.view.AbsSavedState;
@@ -65,7 +79,7 @@ import static com.liuzhenlin.slidingdrawerlayout.Utils.roundFloat;
  * @author <a href="mailto:2233788867@qq.com">刘振林</a>
  */
 @SuppressLint("RtlHardcoded")
-public class SlidingDrawerLayout extends ViewGroup {
+public class SlidingDrawerLayout extends ViewGroup implements NestedScrollingParent3 {
     private static final String TAG = "SlidingDrawerLayout";
 
     /** The left child view covered by {@link #mContentView} */
@@ -94,6 +108,38 @@ public class SlidingDrawerLayout extends ViewGroup {
      */
     private int mShownDrawerLayerType = LAYER_TYPE_NONE;
 
+    /**
+     * Caches the layer type of the content view while a drawer is scrolling, with the layer type
+     * decided by {@link #mLayerPolicy} applied to it.
+     */
+    private int mContentLayerType = LAYER_TYPE_NONE;
+
+    /** @see #setLayerPolicy(LayerPolicy) */
+    private LayerPolicy mLayerPolicy = DEFAULT_LAYER_POLICY;
+
+    /**
+     * Number of the consecutive frames in which the hardware layer of the shown drawer or
+     * the content view has been rebuilt during the current scroll.
+     */
+    private int mShownDrawerLayerRebuildStreak;
+    private int mContentLayerRebuildStreak;
+
+    /**
+     * Number of the consecutive frames with the layer of a child rebuilt, after which the child
+     * is considered to invalidate every frame, whose layer is then dropped during the current
+     * scroll as it would be nothing but an extra offscreen pass.
+     */
+    private static final int LAYER_REBUILD_STREAK_LIMIT = 3;
+
+    /** @see #getLayerBuildCount() */
+    private int mLayerBuildCount;
+
+    /** @see #getLayerReuseCount() */
+    private int mLayerReuseCount;
+
+    /** @see #isLastScrollStartedWithWarmLayer() */
+    private boolean mLastScrollStartedWithWarmLayer;
+
     /**
      * @see #getLeftDrawerWidthPercent()
      * @see #setLeftDrawerWidthPercent(float)
@@ -135,19 +181,16 @@ public class SlidingDrawerLayout extends ViewGroup {
     /*synthetic*/ int mFlags;
 
     /** No drawer is currently scrolling. */
-    public static final int SCROLL_STATE_IDLE = 0;
+    public static final int SCROLL_STATE_IDLE = DrawerStateEngine.SCROLL_STATE_IDLE;
 
     /** There is a drawer currently scrolling and being dragged by user. */
-    public static final int SCROLL_STATE_TOUCH_SCROLL = 1;
+    public static final int SCROLL_STATE_TOUCH_SCROLL = DrawerStateEngine.SCROLL_STATE_TOUCH_SCROLL;
 
     /**
      * A drawer is currently scrolling but not under outside control as a result of a fling
      * or a translation animation.
      */
-    public static final int SCROLL_STATE_AUTO_SCROLL = 1 << 1;
-
-    /** Mask for use with {@link #mFlags} to get the drawer scroll state. */
-    private static final int SCROLL_STATE_MASK = 0b0000_0011;
+    public static final int SCROLL_STATE_AUTO_SCROLL = DrawerStateEngine.SCROLL_STATE_AUTO_SCROLL;
 
     @IntDef({
             SCROLL_STATE_IDLE,
@@ -158,14 +201,32 @@ public class SlidingDrawerLayout extends ViewGroup {
     public @interface ScrollState {
     }
 
+    /** The content view is entirely visible, with no part of it covered by a drawer. */
+    public static final int CONTENT_VISIBLE = DrawerStateEngine.CONTENT_VISIBLE;
+
+    /** Part of the content view is covered by the drawer currently showing. */
+    public static final int CONTENT_PARTIALLY_COVERED = DrawerStateEngine.CONTENT_PARTIALLY_COVERED;
+
+    /** The content view is fully covered by the drawer currently showing. */
+    public static final int CONTENT_OCCLUDED = DrawerStateEngine.CONTENT_OCCLUDED;
+
+    @IntDef({
+            CONTENT_VISIBLE,
+            CONTENT_PARTIALLY_COVERED,
+            CONTENT_OCCLUDED
+    })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface ContentVisibility {
+    }
+
     /** Indicates that the drawer currently showing has been fully opened. */
     private static final int FLAG_DRAWER_HAS_BEEN_OPENED = 1 << 2;
 
-    /** If set, the drawer is currently being or scheduled to be opened via the animator. */
-    private static final int FLAG_ANIMATING_DRAWER_OPENING = 1 << 3;
-
-    /** If set, the drawer is currently being or scheduled to be closed via the animator. */
-    private static final int FLAG_ANIMATING_DRAWER_CLOSURE = 1 << 4;
+    /**
+     * The engine holding the scroll state of the drawers and whether the shown drawer is being
+     * animated, and making the decisions on how the drawer released by user settles.
+     */
+    /*synthetic*/ final DrawerStateEngine mStateEngine;
 
     /** Indicates that the left drawer {@link #mLeftDrawer} is enabled in the touch mode. */
     private static final int FLAG_LEFT_DRAWER_ENABLED_IN_TOUCH = 1 << 5;
@@ -230,6 +291,82 @@ public class SlidingDrawerLayout extends ViewGroup {
 //     */
 //    private static final int FLAG_CLOSE_OPEN_DRAWER_ON_BACK_PRESSED_ENABLED = 1 << 23;
 
+    /**
+     * Flag indicating that {@link #mPendingDragRunnable} has been posted to be run on the next
+     * animation frame to scroll the dragged drawer by {@link #mPendingDragDx}.
+     */
+    private static final int FLAG_PENDING_DRAG_SCHEDULED = 1 << 24;
+
+    /**
+     * Flag indicating that unbuffered dispatch of the pointer events has been requested for
+     * this view and is to be revoked when the drawer scroll state goes back to idle.
+     */
+    private static final int FLAG_UNBUFFERED_TOUCH_DISPATCH_REQUESTED = 1 << 25;
+
+    /**
+     * Flag indicating that the current touch gesture has been judged as a vertical one before
+     * any drawer could handle it, and thus is ignored for the rest of its life.
+     */
+    private static final int FLAG_VERTICAL_GESTURE_LOCKED = 1 << 26;
+
+    /**
+     * Flag indicating that we have accepted a nested scroll started by one of our descendants
+     * with a touch gesture, which is thus not intercepted by us.
+     */
+    private static final int FLAG_NESTED_SCROLL_ACCEPTED = 1 << 27;
+
+    /**
+     * Flag indicating that the shown drawer is being dragged by the horizontal scroll that
+     * the nested scrolling child left unconsumed.
+     */
+    private static final int FLAG_NESTED_DRAGGING = 1 << 28;
+
+    /**
+     * Whether the drag deltas of the active pointer are accumulated and applied to the dragged
+     * drawer at most once per animation frame.
+     *
+     * @see #isDragCoalescingEnabled()
+     * @see #setDragCoalescingEnabled(boolean)
+     */
+    private boolean mDragCoalescingEnabled;
+
+    /**
+     * Whether unbuffered dispatch of the pointer events is to be requested while a drawer is
+     * being dragged on platforms {@link Build.VERSION_CODES#R} and higher.
+     *
+     * @see #isUnbufferedTouchDispatchEnabled()
+     * @see #setUnbufferedTouchDispatchEnabled(boolean)
+     */
+    private boolean mUnbufferedTouchDispatchEnabled;
+
+    /**
+     * @see #isTransformScrollingEnabled()
+     * @see #setTransformScrollingEnabled(boolean)
+     */
+    private boolean mTransformScrollingEnabled;
+
+    /**
+     * @see #isFrameRateBoostEnabled()
+     * @see #setFrameRateBoostEnabled(boolean)
+     */
+    private boolean mFrameRateBoostEnabled;
+
+    /**
+     * Whether the window of this view has been asked for the display mode of the highest
+     * refresh rate for the current drawer motion, and its preferred one is to be restored
+     * as the drawer scroll state returns to {@link #SCROLL_STATE_IDLE}.
+     */
+    private boolean mPeakRefreshRateVoted;
+
+    /**
+     * Whether the shown drawer is being scrolled from outside this view through
+     * {@link #setScrollPercent(View, float)}.
+     *
+     * @see #beginExternalDrag(View)
+     * @see #endExternalDrag()
+     */
+    private boolean mExternalDragging;
+
     /**
      * @see #getContentSensitiveEdgeSize()
      * @see #setContentSensitiveEdgeSize(int)
@@ -252,16 +389,90 @@ public class SlidingDrawerLayout extends ViewGroup {
     private float mDownX;
     private float mDownY;
 
-    private final float[] mTouchX = new float[2];
-    private final float[] mTouchY = new float[2];
+    /**
+     * Bitmask snapshot of the drawers' slidability, resolved at the beginning of each touch
+     * gesture for the subsequent touch events in it to read from.
+     *
+     * @see #resolveGestureSnapshot()
+     */
+    private int mGestureSlidability;
+    private static final int GESTURE_LEFT_DRAWER_SLIDABLE = 1;
+    private static final int GESTURE_RIGHT_DRAWER_SLIDABLE = 1 << 1;
+
+    // Horizontal bounds for hit-testing the touch points in the current gesture,
+    // resolved along with the slidability snapshot.
+    private int mGestureLeftBound; // px
+    private int mGestureRightBound; // px
+    private int mGestureLeftEdgeRight; // px
+    private int mGestureRightEdgeLeft; // px
+    private int mGestureContentLeft; // px
+    private int mGestureContentRight; // px
+    private int mGestureRightDrawerLeft; // px
+
+    /**
+     * The scroll percentage at which the bounds of the content view and the right drawer were
+     * taken, telling whether they have been moved by a settle since then.
+     */
+    private float mGestureScrollPercent;
+
+    private final NestedScrollingParentHelper mNestedScrollingParentHelper =
+            new NestedScrollingParentHelper(this);
+
+    /**
+     * The horizontal velocity of the fling the nested scrolling child has delivered to us
+     * while the drawer is dragged by it, in pixels per second.
+     */
+    private float mNestedFlingVelocityX;
+
+    private int[] mNestedScrollConsumed;
+
+    /**
+     * The x coordinate of the active pointer at the time the previous touch event was processed,
+     * used to compute the horizontal distance it has moved through since then.
+     */
+    private float mLastTouchX;
+
+    /**
+     * Predictor projecting the active pointer ahead to the time the dragged drawer is expected
+     * to be displayed, or <code>null</code> if touch prediction is disabled.
+     *
+     * @see #setTouchPredictionEnabled(boolean)
+     */
+    private TouchPredictor mTouchPredictor;
+
+    /**
+     * Time in milliseconds ahead of the latest sample of the active pointer for its position
+     * to be predicted.
+     *
+     * @see #setTouchPredictionTime(int)
+     */
+    private int mTouchPredictionTime = DEFAULT_TOUCH_PREDICTION_TIME;
+
+    /**
+     * Default time in milliseconds for the position of the active pointer to be predicted ahead,
+     * about one frame on a 60 Hz display.
+     */
+    public static final int DEFAULT_TOUCH_PREDICTION_TIME = 16; // ms
+
+    /**
+     * The predicted x coordinate of the active pointer that the dragged drawer was last scrolled
+     * to follow, while touch prediction is enabled.
+     */
+    private float mPredictedTouchX;
 
-    private VelocityTracker mVelocityTracker;
+    /**
+     * Samples of the active pointer, including all the historical ones batched into each
+     * {@link MotionEvent#ACTION_MOVE}, from which the dragged drawer is scrolled and the velocity
+     * of the pointer is estimated when the drawer is released.
+     */
+    private final TouchSampleBuffer mTouchSamples =
+            new TouchSampleBuffer(TouchSampleBuffer.DEFAULT_CAPACITY);
 
     /**
-     * Minimum gesture speed along the x axis to automatically scroll the drawers,
-     * as measured in dips per second.
+     * Estimator of the velocity of the active pointer from {@link #mTouchSamples}, reused across
+     * gestures so that no object needs to be obtained or recycled for any one of them.
      */
-    private final float mMinimumFlingVelocity; // 500 dp/s
+    private final VelocityEstimator mVelocityEstimator = new VelocityEstimator();
 
     /**
      * The ratio of the distance to scroll content view {@link #mContentView} to the distance
@@ -278,16 +489,71 @@ public class SlidingDrawerLayout extends ViewGroup {
     private float mScrollPercent;
 
     /**
-     * Animator for scrolling the drawers ({@link #mLeftDrawer}, {@link #mRightDrawer}).
+     * The horizontal distance in pixels that the active pointer has moved through since
+     * the dragged drawer was last scrolled, which is to be applied in the coming animation frame
+     * while drag coalescing is enabled.
+     *
+     * @see #setDragCoalescingEnabled(boolean)
+     */
+    private float mPendingDragDx;
+
+    /**
+     * Runnable to be run on the next animation frame to scroll the dragged drawer by
+     * the drag deltas accumulated since the previous frame.
+     *
+     * @see #mPendingDragDx
+     */
+    private Runnable mPendingDragRunnable;
+
+    /**
+     * Settler for scrolling the drawers ({@link #mLeftDrawer}, {@link #mRightDrawer}),
+     * which is only held while a settle is running.
      *
-     * @see DrawerAnimator
+     * @see DrawerSettler
      */
-    private DrawerAnimator mDrawerAnimator;
+    private DrawerSettler mDrawerSettler;
 
-    /** Time interpolator used for {@link #mDrawerAnimator} */
+    /** Time interpolator used for {@link #mDrawerSettler} */
     protected static final Interpolator sBezierCurveDecelerationInterpolator =
             new LinearOutSlowInInterpolator();
 
+    /**
+     * Counter of the frame intervals while the drawers are scrolling, created only when
+     * the frame rate boost is enabled.
+     *
+     * @see #setFrameRateBoostEnabled(boolean)
+     */
+    private MotionFrameTracker mMotionFrameTracker;
+
+    /**
+     * The preferred display mode of the window this view is attached to, as it was before
+     * the vote for the highest refresh rate was cast.
+     */
+    private int mWindowPreferredDisplayModeId;
+
+    /** The display mode of the highest refresh rate the window of this view was asked for */
+    private int mPeakDisplayModeId;
+
+    /**
+     * The measure specs this view was last measured with by its parent.
+     *
+     * @see #layoutInflatedDrawerNow(View)
+     */
+    private int mLastWidthMeasureSpec;
+    private int mLastHeightMeasureSpec;
+
+    /**
+     * Whether this view is being measured or laid out or a drawer just inflated is being laid
+     * out by {@link #layoutInflatedDrawerNow(View)}, as {@link #isInLayout()} only tells
+     * the former on platforms {@link Build.VERSION_CODES#JELLY_BEAN_MR2} and higher.
+     */
+    private boolean mInLayout;
+
+    /**
+     * @see #getOpenLatency()
+     */
+    /*synthetic*/ long mOpenLatency = -1;
+
     /**
      * Time interval in milliseconds of automatically scrolling the drawers.
      *
@@ -303,6 +569,60 @@ public class SlidingDrawerLayout extends ViewGroup {
      */
     public static final int DEFAULT_DURATION = 256; // ms
 
+    /**
+     * The drawers are settled along a deceleration curve over a fixed duration.
+     *
+     * @see #setDuration(int)
+     */
+    public static final int SETTLE_MODE_DURATION = 0;
+
+    /**
+     * The drawers are settled by a spring seeded from the velocity they are released at,
+     * which takes less time the shorter the remaining distance is.
+     *
+     * @see #setSpringStiffness(float)
+     * @see #setSpringDampingRatio(float)
+     */
+    public static final int SETTLE_MODE_SPRING = 1;
+
+    @IntDef({SETTLE_MODE_DURATION, SETTLE_MODE_SPRING})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface SettleMode {
+    }
+
+    /**
+     * @see #getSettleMode()
+     * @see #setSettleMode(int)
+     */
+    @SettleMode
+    /*synthetic*/ int mSettleMode = SETTLE_MODE_DURATION;
+
+    /** @see #getContentVisibility() */
+    @ContentVisibility
+    private int mContentVisibility = CONTENT_VISIBLE;
+
+    private OnContentVisibilityChangeListener mOnContentVisibilityChangeListener;
+
+    /**
+     * Number of the draws of the content view and the shown drawer skipped since they have
+     * no region visible in this view.
+     *
+     * @see #getCulledChildDrawCount()
+     */
+    private int mCulledChildDrawCount;
+
+    /** @see #setSpringStiffness(float) */
+    /*synthetic*/ float mSpringStiffness = SpringSimulation.DEFAULT_STIFFNESS;
+
+    /** @see #setSpringDampingRatio(float) */
+    /*synthetic*/ float mSpringDampingRatio = SpringSimulation.DEFAULT_DAMPING_RATIO;
+
+    /**
+     * Horizontal velocity in pixels per second of the drawer just released by user, to seed
+     * the spring that settles it with.
+     */
+    private float mSettleVelocity;
+
     /**
      * Runnable to be run for opening the drawer represented by a ViewStub and not yet added
      * to this layout (even not being inflated).
@@ -313,10 +633,11 @@ public class SlidingDrawerLayout extends ViewGroup {
     /*synthetic*/ OpenStubDrawerRunnable mOpenStubDrawerRunnable;
 
     /**
-     * The Runnable to be executed for starting the drawer animator to normally open or close
-     * the drawer it targets to, is scheduled as needed during a layout pass.
+     * Warms up the drawer that a touch gesture starting from its edge is likely to drag out.
+     *
+     * @see DrawerWarmUp
      */
-    private DrawerRunnable mPostedDrawerRunnable;
+    private DrawerWarmUp mDrawerWarmUp;
 
     /**
      * OnGlobalLayoutListener used to open the drawer with the specified edge gravity when
@@ -333,6 +654,16 @@ public class SlidingDrawerLayout extends ViewGroup {
     @ColorInt
     private int mContentFadeColor;
 
+    /**
+     * Alphas of {@link #mContentFadeColor} for the scroll percentages from 0 to 1 in 255 steps,
+     * looked up instead of dimming the color in every frame a drawer moves.
+     *
+     * @see #getContentFadeAlpha()
+     */
+    private final int[] mContentFadeAlphas = new int[CONTENT_FADE_ALPHA_STEPS + 1];
+
+    private static final int CONTENT_FADE_ALPHA_STEPS = 255;
+
     /**
      * Default fade color for the content view if no custom value is provided
      */
@@ -344,95 +675,195 @@ public class SlidingDrawerLayout extends ViewGroup {
     /*package*/ @interface EdgeGravity {
     }
 
-    private final class DrawerAnimator extends ValueAnimator {
-        final AnimatorListener listener = new AnimatorListenerAdapter() {
-            boolean canceled;
+    /**
+     * Settles the shown drawer to a target position, driven by a Runnable posted to the next
+     * animation frame. Each frame, the position of the drawer is computed in floating point
+     * straight from the time elapsed since the settle started, either through the interpolator
+     * over {@link #mDuration} milliseconds or through the spring seeded from the release velocity
+     * in the {@link #SETTLE_MODE_SPRING} mode, so that nothing will be boxed or allocated per
+     * frame, and starting a new settle only resets a few fields.
+     * <p>
+     * Starting a settle dispatches {@link #SCROLL_STATE_AUTO_SCROLL}, a normal end dispatches
+     * {@link #SCROLL_STATE_IDLE} unless the drawer has been dragged by user in the meantime,
+     * and a cancellation dispatches nothing.
+     * <p>
+     * A running settle can be retargeted in place, as a layout pass moves the endpoints of
+     * the drawer or it is asked to scroll somewhere else, which carries on from where the drawer
+     * is at without going through a cancellation and a restart.
+     * <p>
+     * Frames are driven by the {@link DrawerFrameDriver} shared by all the instances of
+     * this class, on platforms {@link Build.VERSION_CODES#JELLY_BEAN} and higher, while the host
+     * is attached to a window, and this settler is dropped by its host once the settle ends,
+     * so that no idle or detached instance will be held by the driver.
+     */
+    private final class DrawerSettler implements Runnable {
+        float startX;
+        int finalX;
+        long startTime;
+        int duration;
 
-            @Override
-            public void onAnimationStart(Animator animation) {
-                canceled = false;
-                dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_AUTO_SCROLL);
-            }
+        SpringSimulation spring;
+        boolean springy;
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                mFlags &= ~(FLAG_ANIMATING_DRAWER_OPENING | FLAG_ANIMATING_DRAWER_CLOSURE);
-                if (canceled) {
-                    return;
-                }
+        /** Time at which the opening this settle performs was requested, if it is measured */
+        long openRequestTime;
 
-                // Only when the drawer currently showing is not being dragged by user, i.e., this
-                // animation normally ends, is the idle scroll state dispatched to the listeners.
-                if ((mFlags & SCROLL_STATE_MASK) == SCROLL_STATE_AUTO_SCROLL) {
-                    dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_IDLE);
-                }
-            }
+        boolean running;
+        boolean posted;
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
-                canceled = true;
-            }
-        };
+        DrawerSettler() {
+        }
 
-        DrawerAnimator() {
-            setInterpolator(sBezierCurveDecelerationInterpolator);
-            setDuration(mDuration);
-            addListener(listener);
-            addUpdateListener(
-                    animation -> scrollDrawerTo(mShownDrawer, (int) animation.getAnimatedValue()));
+        boolean isRunning() {
+            return running;
         }
 
-        void cancel(boolean clearFlag) {
-            if (clearFlag) {
-                super.cancel();
+        /**
+         * @param openRequestTime the time at which the opening this settle performs was
+         *                        requested, or 0 if its latency is not to be measured
+         */
+        void start(float startX, int finalX, float velocity, long openRequestTime) {
+            this.startX = startX;
+            this.finalX = finalX;
+            // Set before the listeners are notified below, who may cancel and release this.
+            this.openRequestTime = openRequestTime;
+            startTime = AnimationUtils.currentAnimationTimeMillis();
+            duration = mDuration;
+            springy = mSettleMode == SETTLE_MODE_SPRING;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                    && !ValueAnimator.areAnimatorsEnabled()) {
+                // Animations are turned off by the user, so jump to the end on the next frame.
+                duration = 0;
+                springy = false;
+            }
+            if (springy) {
+                if (spring == null) {
+                    spring = new SpringSimulation();
+                }
+                spring.setStiffness(mSpringStiffness);
+                spring.setDampingRatio(mSpringDampingRatio);
+                spring.start(startX - finalX, velocity);
+            }
+            running = true;
+            postToNextFrame();
+            dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_AUTO_SCROLL);
+        }
+
+        /**
+         * Redirects the running settle to the given position, keeping the progress made so far
+         * along the curve, or the velocity of the spring in the {@link #SETTLE_MODE_SPRING} mode.
+         */
+        void retarget(int finalX) {
+            final float x = getDrawerX(mShownDrawer);
+            final long now = AnimationUtils.currentAnimationTimeMillis();
+            if (springy) {
+                spring.start(x - finalX, spring.getVelocity());
+                startTime = now;
             } else {
-                int flag = mFlags & (FLAG_ANIMATING_DRAWER_OPENING | FLAG_ANIMATING_DRAWER_CLOSURE);
-                super.cancel();
-                mFlags |= flag;
+                final long elapsed = now - startTime;
+                final float fraction = elapsed >= duration ?
+                        1f : sBezierCurveDecelerationInterpolator
+                                .getInterpolation(elapsed / (float) duration);
+                if (fraction < 1f && (finalX - x) * (this.finalX - startX) > 0) {
+                    // Moves the start point so that the curve towards the new position passes
+                    // through where the drawer is at right now.
+                    startX = finalX + (x - finalX) / (1f - fraction);
+                } else {
+                    // Turning back, or nothing left of the curve to keep
+                    startX = x;
+                    startTime = now;
+                }
+            }
+            this.finalX = finalX;
+            postToNextFrame();
+        }
+
+        void postToNextFrame() {
+            if (!posted) {
+                posted = true;
+                // The static driver is not to hold this settler while the host is detached,
+                // in which case this is queued by the host till it is attached again.
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                        && ViewCompat.isAttachedToWindow(SlidingDrawerLayout.this)) {
+                    DrawerFrameDriver.getInstance().post(this);
+                } else {
+                    ViewCompat.postOnAnimation(SlidingDrawerLayout.this, this);
+                }
             }
         }
-    }
 
-    private final class DrawerRunnable implements Runnable {
-        View drawer;
-        boolean open;
+        @Override
+        public void run() {
+            posted = false;
+            if (!running) {
+                return;
+            }
 
-        boolean isInMsgQueue;
+            final long now = AnimationUtils.currentAnimationTimeMillis();
+            if (openRequestTime != 0) {
+                mOpenLatency = Math.max(0, now - openRequestTime);
+                openRequestTime = 0;
+            }
 
-        DrawerRunnable() {
-        }
+            final long elapsed = now - startTime;
+            final float x;
+            if (springy) {
+                x = spring.update(elapsed) ? finalX : finalX + spring.getDisplacement();
+            } else if (elapsed >= duration) {
+                x = finalX;
+            } else {
+                final float fraction = sBezierCurveDecelerationInterpolator
+                        .getInterpolation(elapsed / (float) duration);
+                x = startX + (finalX - startX) * fraction;
+            }
+            if (x == finalX) {
+                running = false;
+                scrollDrawerTo(mShownDrawer, finalX);
+                // Settled unless restarted by the listeners
+                if (!running) {
+                    onEnd();
+                }
+                return;
+            }
 
-        void initForPost(View drawer, boolean open) {
-            this.drawer = drawer;
-            this.open = open;
-            isInMsgQueue = true;
+            scrollDrawerTo(mShownDrawer, x);
+            if (running) {
+                postToNextFrame();
+            }
         }
 
-        void initAndPostToQueue(View drawer, boolean open) {
-            initForPost(drawer, open);
-            post(this);
+        void onEnd() {
+            mStateEngine.clearAnimatingFlags();
+            // Only when the drawer currently showing is not being dragged by user, i.e., this
+            // settle normally ends, is the idle scroll state dispatched to the listeners.
+            if (mStateEngine.getScrollState() == SCROLL_STATE_AUTO_SCROLL) {
+                dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_IDLE);
+            }
+            release();
         }
 
-        void resetAndRemoveFromQueue() {
-            if (isInMsgQueue) {
-                removeCallbacks(this);
-                isInMsgQueue = false;
-                drawer = null;
-                open = false;
+        /** Drops this settler from its host, unless a new settle has been started with it. */
+        void release() {
+            if (!running && mDrawerSettler == this) {
+                mDrawerSettler = null;
             }
         }
 
-        @Override
-        public void run() {
-            if (isInMsgQueue) {
-                isInMsgQueue = false;
-                if (open) {
-                    openDrawer(drawer, true);
-                } else if (drawer == mShownDrawer) {
-                    closeDrawer(true);
+        void cancel(boolean clearFlag) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            if (posted) {
+                posted = false;
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                    DrawerFrameDriver.getInstance().remove(this);
                 }
-                drawer = null;
-                open = false;
+                removeCallbacks(this);
+            }
+            if (clearFlag) {
+                mStateEngine.clearAnimatingFlags();
+                release();
             }
         }
     }
@@ -440,16 +871,18 @@ public class SlidingDrawerLayout extends ViewGroup {
     private final class OpenStubDrawerRunnable implements Runnable {
         final View drawer;
         final boolean animate;
+        final long requestTime;
 
-        OpenStubDrawerRunnable(View drawer, boolean animate) {
+        OpenStubDrawerRunnable(View drawer, boolean animate, long requestTime) {
             this.drawer = drawer;
             this.animate = animate;
+            this.requestTime = requestTime;
         }
 
         @Override
         public void run() {
             mOpenStubDrawerRunnable = null;
-            openDrawer(drawer, animate);
+            openDrawer(drawer, animate, requestTime);
         }
 
         void removeFromMsgQueue() {
@@ -458,6 +891,150 @@ public class SlidingDrawerLayout extends ViewGroup {
         }
     }
 
+    /**
+     * Spreads the work of getting a drawer ready to be dragged, i.e., inflating it if it is still
+     * a ViewStub, making it visible and building a hardware layer for it if the
+     * {@link LayerPolicy} puts it on one, across the frames
+     * following the {@link MotionEvent#ACTION_DOWN} event that lands on its edge, one step in
+     * each frame, so that all this will have most likely been done before the touch slop is
+     * crossed and the drawer starts to scroll.
+     * <p>
+     * While it is still closed, the drawer is recorded by {@link #drawChild} with an empty clip,
+     * keeping it in the drawn tree without drawing anything of it, as the renderer would
+     * otherwise destroy its layer as soon as it is built. It also stays hidden from
+     * the accessibility services in the meantime.
+     * <p>
+     * If the gesture turns out not to drag the drawer, the visibility and layer type of the drawer
+     * will be restored, which is all needed to undo the warm-up.
+     */
+    private final class DrawerWarmUp implements Runnable {
+        int gravity = Gravity.NO_GRAVITY;
+        View drawer;
+        int step;
+        int drawerLayerType;
+        boolean layerBuilt;
+
+        /** Whether the drawer has been recorded into the display list of this view since shown */
+        boolean drawn;
+
+        /** Number of the frames waited for the drawer to be laid out and drawn */
+        int waitedFrames;
+
+        static final int STEP_INFLATE = 0;
+        static final int STEP_SHOW = 1;
+        static final int STEP_BUILD_LAYER = 2;
+        static final int STEP_DONE = 3;
+
+        /**
+         * Maximum number of the frames to wait for the drawer to be laid out and drawn,
+         * after which the warm-up is given up.
+         */
+        static final int MAX_WAITED_FRAMES = 4;
+
+        DrawerWarmUp() {
+        }
+
+        boolean isInProgress() {
+            return gravity != Gravity.NO_GRAVITY;
+        }
+
+        void start(int gravity) {
+            cancel(true);
+            this.gravity = gravity;
+            step = STEP_INFLATE;
+            ViewCompat.postOnAnimation(SlidingDrawerLayout.this, this);
+        }
+
+        @Override
+        public void run() {
+            switch (step) {
+                case STEP_INFLATE:
+                    if (gravity == Gravity.LEFT) {
+                        if (isStubDrawer(mLeftDrawer)) {
+                            mLeftDrawer = inflateStubDrawer((ViewStub) mLeftDrawer);
+                        }
+                        drawer = mLeftDrawer;
+                    } else {
+                        if (isStubDrawer(mRightDrawer)) {
+                            mRightDrawer = inflateStubDrawer((ViewStub) mRightDrawer);
+                        }
+                        drawer = mRightDrawer;
+                    }
+                    step = STEP_SHOW;
+                    break;
+                case STEP_SHOW:
+                    if (drawer.getVisibility() == GONE) {
+                        cancel(false);
+                        return;
+                    }
+                    // The drawer is still closed, whose descendants are not to be reported to
+                    // the accessibility services though it is to be made visible.
+                    ViewCompat.setImportantForAccessibility(drawer,
+                            ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS);
+                    drawer.setVisibility(VISIBLE);
+                    step = STEP_BUILD_LAYER;
+                    break;
+                case STEP_BUILD_LAYER:
+                    // Wait till the drawer has been laid out and drawn, or give up if that does
+                    // not happen in a few frames.
+                    if (drawer.getWidth() == 0 || !drawn) {
+                        if (++waitedFrames > MAX_WAITED_FRAMES) {
+                            cancel(true);
+                            return;
+                        }
+                        break;
+                    }
+                    drawerLayerType = drawer.getLayerType();
+                    if (mLayerPolicy.getLayerType(SlidingDrawerLayout.this, drawer,
+                            SCROLL_STATE_TOUCH_SCROLL) == LAYER_TYPE_HARDWARE) {
+                        drawer.setLayerType(LAYER_TYPE_HARDWARE, null);
+                        layerBuilt = buildChildLayer(drawer);
+                    }
+                    step = STEP_DONE;
+                    return;
+            }
+            ViewCompat.postOnAnimation(SlidingDrawerLayout.this, this);
+        }
+
+        /**
+         * Hands over the warm-up to the given drawer that is about to scroll, or undoes it
+         * if some other drawer is to be scrolled instead.
+         *
+         * @return true if the hardware layer has been built for the given drawer, in which case,
+         *         the original layer type of it is stored in {@link #mShownDrawerLayerType}.
+         */
+        boolean finishFor(View shownDrawer) {
+            if (drawer != shownDrawer || step != STEP_DONE) {
+                cancel(drawer != shownDrawer);
+                return false;
+            }
+            mShownDrawerLayerType = drawerLayerType;
+            mLastScrollStartedWithWarmLayer = layerBuilt;
+            cancel(false);
+            return true;
+        }
+
+        void cancel(boolean undo) {
+            if (!isInProgress()) {
+                return;
+            }
+            removeCallbacks(this);
+            if (undo && drawer != null) {
+                if (step == STEP_DONE) {
+                    drawer.setLayerType(drawerLayerType, null);
+                }
+                if (step >= STEP_BUILD_LAYER && drawer.getVisibility() == VISIBLE) {
+                    drawer.setVisibility(INVISIBLE);
+                }
+            }
+            gravity = Gravity.NO_GRAVITY;
+            drawer = null;
+            layerBuilt = false;
+            drawn = false;
+            waitedFrames = 0;
+        }
+    }
+
     private abstract class OpenDrawerOnGlobalLayoutListener
             implements ViewTreeObserver.OnGlobalLayoutListener {
         int drawerGravity;
@@ -483,7 +1060,7 @@ public class SlidingDrawerLayout extends ViewGroup {
         super(context, attrs, defStyleAttr);
         mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
         mDp = getResources().getDisplayMetrics().density;
-        mMinimumFlingVelocity = 500f * mDp;
+        mStateEngine = new DrawerStateEngine(500f * mDp);
 
         ApplicationInfo ai = context.getApplicationInfo();
         if (ai.targetSdkVersion >= Build.VERSION_CODES.JELLY_BEAN_MR1
@@ -542,6 +1119,17 @@ public class SlidingDrawerLayout extends ViewGroup {
         setContentFadeColor(ta.getColor(R.styleable
                 .SlidingDrawerLayout_contentFadeColor, DEFAULT_FADE_COLOR));
         setDuration(ta.getInteger(R.styleable.SlidingDrawerLayout_duration, DEFAULT_DURATION));
+        setSettleMode(ta.getInt(R.styleable.SlidingDrawerLayout_settleMode, SETTLE_MODE_DURATION));
+        if (ta.hasValue(R.styleable.SlidingDrawerLayout_springStiffness)) {
+            setSpringStiffness(ta.getFloat(R.styleable.SlidingDrawerLayout_springStiffness,
+                    SpringSimulation.DEFAULT_STIFFNESS));
+        }
+        if (ta.hasValue(R.styleable.SlidingDrawerLayout_springDampingRatio)) {
+            setSpringDampingRatio(ta.getFloat(R.styleable.SlidingDrawerLayout_springDampingRatio,
+                    SpringSimulation.DEFAULT_DAMPING_RATIO));
+        }
+        setUnbufferedTouchDispatchEnabled(ta.getBoolean(R.styleable
+                .SlidingDrawerLayout_unbufferedTouchDispatchEnabled, false));
 //        setCloseOpenDrawerOnBackPressedEnabled(ta.getBoolean(R.styleable
 //                .SlidingDrawerLayout_closeOpenDrawerOnBackPressedEnabled, true));
         ta.recycle();
@@ -826,6 +1414,12 @@ public class SlidingDrawerLayout extends ViewGroup {
                 resolveDrawerTouchAbilitiesIfDirectionResolved();
                 break;
         }
+        // Let the touch gesture in progress, if any, know about the change.
+        mGestureSlidability = resolveGestureSlidability();
+        if (mGestureSlidability == 0 && mShownDrawer == null) {
+            // Drop what has been tracked for dragging a drawer, once for the rest of the gesture.
+            resetTouch();
+        }
     }
 
     /**
@@ -993,7 +1587,7 @@ public class SlidingDrawerLayout extends ViewGroup {
     @SuppressLint("WrongConstant")
     @ScrollState
     public int getScrollState() {
-        return mFlags & SCROLL_STATE_MASK;
+        return mStateEngine.getScrollState();
     }
 
     /**
@@ -1027,12 +1621,137 @@ public class SlidingDrawerLayout extends ViewGroup {
      * @throws IllegalArgumentException if a negative 'duration' is passed in
      */
     public void setDuration(int duration) {
-        if (mDrawerAnimator != null) {
-            mDrawerAnimator.setDuration(mDuration);
+        if (duration < 0) {
+            throw new IllegalArgumentException("The duration must >= 0, but your is " + duration);
         }
         mDuration = duration;
     }
 
+    /**
+     * @return how the drawers are settled when they are released by user or opened/closed
+     *         with animation, either {@link #SETTLE_MODE_DURATION} (the default) or
+     *         {@link #SETTLE_MODE_SPRING}
+     * @see #setSettleMode(int)
+     */
+    @SettleMode
+    public int getSettleMode() {
+        return mSettleMode;
+    }
+
+    /**
+     * Sets how the drawers are settled when they are released by user or opened/closed with
+     * animation.
+     * <p>
+     * In the {@link #SETTLE_MODE_SPRING} mode, the drawer released by user continues from
+     * the velocity of the user's finger instead of restarting from rest, and the settle lasts
+     * only as long as the spring takes to bring the drawer to rest, so that a short remaining
+     * distance is covered in a few frames. The duration set through {@link #setDuration(int)}
+     * is ignored in this mode.
+     */
+    public void setSettleMode(@SettleMode int mode) {
+        mSettleMode = mode;
+    }
+
+    /**
+     * @return the stiffness of the spring settling the drawers in the
+     *         {@link #SETTLE_MODE_SPRING} mode
+     * @see #setSpringStiffness(float)
+     */
+    public float getSpringStiffness() {
+        return mSpringStiffness;
+    }
+
+    /**
+     * Sets the stiffness of the spring settling the drawers in the {@link #SETTLE_MODE_SPRING}
+     * mode. A stiffer spring settles the drawers faster. The default is {@value
+     * SpringSimulation#DEFAULT_STIFFNESS}.
+     *
+     * @throws IllegalArgumentException if the provided argument <code>stiffness</code> <= 0
+     */
+    public void setSpringStiffness(float stiffness) {
+        if (!(stiffness > 0)) {
+            throw new IllegalArgumentException("The spring stiffness must > 0, " +
+                    "but your is " + stiffness);
+        }
+        mSpringStiffness = stiffness;
+    }
+
+    /**
+     * @return the damping ratio of the spring settling the drawers in the
+     *         {@link #SETTLE_MODE_SPRING} mode
+     * @see #setSpringDampingRatio(float)
+     */
+    public float getSpringDampingRatio() {
+        return mSpringDampingRatio;
+    }
+
+    /**
+     * Sets the damping ratio of the spring settling the drawers in the {@link #SETTLE_MODE_SPRING}
+     * mode. The default of {@value SpringSimulation#DEFAULT_DAMPING_RATIO} brings the drawers to
+     * rest as fast as possible without any oscillation. A ratio below 1 makes the spring
+     * oscillate, though a drawer can never scroll past its opened or closed position.
+     *
+     * @throws IllegalArgumentException if the provided argument <code>dampingRatio</code> <= 0
+     */
+    public void setSpringDampingRatio(float dampingRatio) {
+        if (!(dampingRatio > 0)) {
+            throw new IllegalArgumentException("The spring damping ratio must > 0, " +
+                    "but your is " + dampingRatio);
+        }
+        mSpringDampingRatio = dampingRatio;
+    }
+
+    /**
+     * @return whether the drawers and the content view are scrolled by their translations rather
+     *         than by offsetting their layout positions
+     * @see #setTransformScrollingEnabled(boolean)
+     */
+    public boolean isTransformScrollingEnabled() {
+        return mTransformScrollingEnabled;
+    }
+
+    /**
+     * Sets whether to scroll the drawers and the content view by their translations along the
+     * X axis, leaving their layout positions where they would be were the drawers closed,
+     * rather than by offsetting their layout positions by whole pixels.
+     * <p>
+     * Translations are floating-point values, so that the drawers and the content view move
+     * in sub-pixel steps, which looks smoother on high refresh rate displays, and no frame
+     * of a drag or a settle changes the layout bounds of any child.
+     * This is disabled by default.
+     */
+    public void setTransformScrollingEnabled(boolean enabled) {
+        if (enabled == mTransformScrollingEnabled) {
+            return;
+        }
+        if (mDrawerSettler != null && mDrawerSettler.isRunning()) {
+            mDrawerSettler.cancel(false);
+            mDrawerSettler.onEnd();
+        }
+        mTransformScrollingEnabled = enabled;
+        if (!enabled) {
+            // Translations are no longer to be laid out with. Only the content view and
+            // the drawers have been translated by us, leaving others' translations alone.
+            if (mContentView != null) {
+                mContentView.setTranslationX(0);
+            }
+            if (mLeftDrawer != null) {
+                mLeftDrawer.setTranslationX(0);
+            }
+            if (mRightDrawer != null) {
+                mRightDrawer.setTranslationX(0);
+            }
+        }
+        requestLayout();
+    }
+
+    private DrawerSettler obtainDrawerSettler() {
+        if (mDrawerSettler == null) {
+            mDrawerSettler = new DrawerSettler();
+        }
+        return mDrawerSettler;
+    }
+
 //    /**
 //     * @return <code>true</code> if the drawer currently open can be closed when the user
 //     * presses the back button.
@@ -1076,6 +1795,386 @@ public class SlidingDrawerLayout extends ViewGroup {
         mContentSensitiveEdgeSize = size;
     }
 
+    /**
+     * @return whether the drag deltas of the user's finger are coalesced and applied to
+     *         the dragged drawer once per animation frame.
+     * @see #setDragCoalescingEnabled(boolean)
+     */
+    public boolean isDragCoalescingEnabled() {
+        return mDragCoalescingEnabled;
+    }
+
+    /**
+     * Sets whether to coalesce the drag deltas of the user's finger that arrive within the same
+     * frame and apply them to the dragged drawer only once, on the next animation frame, instead
+     * of scrolling the drawer immediately for each move event.
+     * <p>
+     * On devices with a high touch sampling rate, this saves the main thread from moving
+     * the children, notifying the {@link OnDrawerScrollListener}s and invalidating this view
+     * more than once per frame, so that the listeners will see at most one scroll percentage
+     * change per frame while the drawer is being dragged.
+     * <p>
+     * This is disabled by default.
+     */
+    public void setDragCoalescingEnabled(boolean enabled) {
+        mDragCoalescingEnabled = enabled;
+        if (!enabled) {
+            // Do not leave the distance already dragged through unapplied.
+            applyPendingDrag();
+        }
+    }
+
+    /**
+     * @return whether unbuffered dispatch of the pointer events is requested while a drawer
+     *         is being dragged.
+     * @see #setUnbufferedTouchDispatchEnabled(boolean)
+     */
+    public boolean isUnbufferedTouchDispatchEnabled() {
+        return mUnbufferedTouchDispatchEnabled;
+    }
+
+    /**
+     * Sets whether to request unbuffered dispatch of the pointer events for this view while
+     * a drawer is being dragged by user, so that the input system delivers each move event
+     * as soon as it is available rather than batching them up to the next frame, which takes
+     * about one frame off the latency from the user's finger moving to the drawer following it.
+     * Normal batching is restored once the drawer scroll state returns to
+     * {@link #SCROLL_STATE_IDLE}.
+     * <p>
+     * This only takes effect on platforms {@link Build.VERSION_CODES#R} and higher,
+     * and is disabled by default.
+     */
+    public void setUnbufferedTouchDispatchEnabled(boolean enabled) {
+        mUnbufferedTouchDispatchEnabled = enabled;
+        if (enabled) {
+            if (mStateEngine.getScrollState() == SCROLL_STATE_TOUCH_SCROLL) {
+                requestUnbufferedTouchDispatch();
+            }
+        } else {
+            revokeUnbufferedTouchDispatch();
+        }
+    }
+
+    /**
+     * @return whether the dragged drawer follows the predicted position of the user's finger
+     *         rather than the latest sampled one.
+     * @see #setTouchPredictionEnabled(boolean)
+     */
+    public boolean isTouchPredictionEnabled() {
+        return mTouchPredictor != null;
+    }
+
+    /**
+     * Sets whether to predict where the user's finger will be when the dragged drawer gets
+     * displayed, from the recent velocity and acceleration of the finger, and scroll the drawer
+     * and the content view to follow the predicted position instead of the latest sampled one.
+     * The prediction is corrected with each new sample of the finger.
+     * <p>
+     * This hides part of the latency from the user's finger moving to the drawer following it,
+     * at the cost of the drawer slightly overshooting when the finger stops or turns abruptly.
+     * <p>
+     * This is disabled by default.
+     *
+     * @see #setTouchPredictionTime(int)
+     * @see #getTouchPredictionError()
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        if (enabled) {
+            if (mTouchPredictor == null) {
+                mTouchPredictor = new TouchPredictor();
+                // Start following the predicted position from where the drawer currently is,
+                // if it is being dragged.
+                if (mTouchSamples.size() > 0) {
+                    mPredictedTouchX = mTouchSamples.getLatestX();
+                    mTouchPredictor.addSample(mPredictedTouchX,
+                            mTouchSamples.getLatestEventTime());
+                }
+            }
+        } else {
+            mTouchPredictor = null;
+        }
+    }
+
+    /**
+     * @return the time in milliseconds ahead of the latest sample of the user's finger for its
+     *         position to be predicted
+     * @see #setTouchPredictionTime(int)
+     */
+    public int getTouchPredictionTime() {
+        return mTouchPredictionTime;
+    }
+
+    /**
+     * Sets how far ahead of the latest sample of the user's finger, in milliseconds, its position
+     * is to be predicted while touch prediction is enabled. This should approximate the time it
+     * takes for a touch sample to show up on the screen, typically one to two frames.
+     *
+     * @throws IllegalArgumentException if the provided argument <code>time</code> < 0
+     * @see #DEFAULT_TOUCH_PREDICTION_TIME
+     * @see #setTouchPredictionEnabled(boolean)
+     */
+    public void setTouchPredictionTime(int time) {
+        if (time < 0) {
+            throw new IllegalArgumentException("The touch prediction time must >= 0, " +
+                    "but your is " + time);
+        }
+        mTouchPredictionTime = time;
+    }
+
+    /**
+     * @return the mean absolute error in pixels of the predictions made for the user's finger
+     *         in the latest touch gesture, i.e., how far apart on average each sample of the
+     *         finger was from where the predictor expected it to be, or 0 if touch prediction
+     *         is disabled or no prediction has been verified yet.
+     * @see #setTouchPredictionEnabled(boolean)
+     */
+    public float getTouchPredictionError() {
+        return mTouchPredictor == null ? 0 : mTouchPredictor.getMeanError();
+    }
+
+    private void requestUnbufferedTouchDispatch() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                && mUnbufferedTouchDispatchEnabled
+                && (mFlags & FLAG_UNBUFFERED_TOUCH_DISPATCH_REQUESTED) == 0) {
+            mFlags |= FLAG_UNBUFFERED_TOUCH_DISPATCH_REQUESTED;
+            requestUnbufferedDispatch(InputDevice.SOURCE_CLASS_POINTER);
+        }
+    }
+
+    private void revokeUnbufferedTouchDispatch() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                && (mFlags & FLAG_UNBUFFERED_TOUCH_DISPATCH_REQUESTED) != 0) {
+            mFlags &= ~FLAG_UNBUFFERED_TOUCH_DISPATCH_REQUESTED;
+            // Passing 0 in restores the normal batching for all input sources.
+            requestUnbufferedDispatch(0);
+        }
+    }
+
+    /**
+     * @return whether the display is asked to run at its highest refresh rate while a drawer
+     *         is scrolling
+     * @see #setFrameRateBoostEnabled(boolean)
+     */
+    public boolean isFrameRateBoostEnabled() {
+        return mFrameRateBoostEnabled;
+    }
+
+    /**
+     * Sets whether to ask the display to run at its highest refresh rate while a drawer is being
+     * dragged by user or automatically scrolling, so that the motion will be as smooth as the
+     * panel allows, without keeping the panel at that rate, which costs battery, after the drawer
+     * scroll state returns to {@link #SCROLL_STATE_IDLE}.
+     * <p>
+     * The vote is cast on platforms {@link Build.VERSION_CODES#R} and higher, through the
+     * preferred display mode of the window this view is attached to, as a drawer starts
+     * scrolling from the idle state, and withdrawn as it becomes idle again, this view is
+     * detached or this is disabled, when the preferred display mode the window had before
+     * is restored, unless it has been given another one in the meantime. Note that each of
+     * these changes relayouts the window, so this is better left off for windows that are
+     * costly to relayout. The intervals between the frames of the motion are counted
+     * on platforms {@link Build.VERSION_CODES#JELLY_BEAN} and higher,
+     * see {@link #getMotionFrameCount()}.
+     * <p>
+     * This is disabled by default.
+     */
+    public void setFrameRateBoostEnabled(boolean enabled) {
+        mFrameRateBoostEnabled = enabled;
+        if (enabled) {
+            if (mStateEngine.getScrollState() != SCROLL_STATE_IDLE) {
+                startFrameRateBoost();
+            }
+        } else {
+            stopFrameRateBoost();
+        }
+    }
+
+    /**
+     * @return the number of frame intervals counted while the drawers were scrolling with
+     *         the frame rate boost enabled
+     * @see #setFrameRateBoostEnabled(boolean)
+     * @see #resetMotionFrameStats()
+     */
+    public int getMotionFrameCount() {
+        return mMotionFrameTracker == null ? 0 : mMotionFrameTracker.counter.getCount();
+    }
+
+    /**
+     * @return the number of frame intervals counted while the drawers were scrolling that
+     *         were longer than one and a half times the refresh period of the display
+     */
+    public int getSlowMotionFrameCount() {
+        return mMotionFrameTracker == null ? 0 : mMotionFrameTracker.counter.getSlowCount();
+    }
+
+    /**
+     * @return the mean of the frame intervals in milliseconds counted while the drawers
+     *         were scrolling, or 0 if none has been counted
+     */
+    public float getAverageMotionFrameInterval() {
+        return mMotionFrameTracker == null ? 0 : mMotionFrameTracker.counter.getAverageMillis();
+    }
+
+    /**
+     * @return the longest frame interval in milliseconds counted while the drawers
+     *         were scrolling
+     */
+    public float getMaxMotionFrameInterval() {
+        return mMotionFrameTracker == null ? 0 : mMotionFrameTracker.counter.getMaxMillis();
+    }
+
+    /** Discards the frame intervals counted so far while the drawers were scrolling. */
+    public void resetMotionFrameStats() {
+        if (mMotionFrameTracker != null) {
+            mMotionFrameTracker.counter.reset();
+        }
+    }
+
+    /**
+     * @return the number of times the content view or the shown drawer was not drawn, with
+     *         its fading, since none of it was visible in this view, e.g., when the content view
+     *         is pushed out of this view by a fully opened drawer of the maximum width
+     * @see #resetCulledChildDrawCount()
+     */
+    public int getCulledChildDrawCount() {
+        return mCulledChildDrawCount;
+    }
+
+    /** Resets the number of the culled draws of the content view and the shown drawer to 0. */
+    public void resetCulledChildDrawCount() {
+        mCulledChildDrawCount = 0;
+    }
+
+    private void startFrameRateBoost() {
+        if (!mFrameRateBoostEnabled) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && !mPeakRefreshRateVoted) {
+            voteForPeakRefreshRate();
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mMotionFrameTracker == null) {
+                mMotionFrameTracker = new MotionFrameTracker();
+            }
+            mMotionFrameTracker.start();
+        }
+    }
+
+    private void stopFrameRateBoost() {
+        withdrawPeakRefreshRateVote();
+        if (mMotionFrameTracker != null) {
+            mMotionFrameTracker.stop();
+        }
+    }
+
+    private void withdrawPeakRefreshRateVote() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && mPeakRefreshRateVoted) {
+            mPeakRefreshRateVoted = false;
+            final View rootView = getRootView();
+            // Leave the mode alone if the app has changed it since the vote.
+            if (rootView.getLayoutParams() instanceof WindowManager.LayoutParams
+                    && ((WindowManager.LayoutParams) rootView.getLayoutParams())
+                            .preferredDisplayModeId == mPeakDisplayModeId) {
+                updateWindowPreferredDisplayMode(mWindowPreferredDisplayModeId);
+            }
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.R)
+    private void voteForPeakRefreshRate() {
+        final Display display = getDisplay();
+        final View rootView = getRootView();
+        if (display == null
+                || !(rootView.getLayoutParams() instanceof WindowManager.LayoutParams)) {
+            return;
+        }
+
+        // Only the modes of the current resolution can be switched between seamlessly.
+        final Display.Mode currentMode = display.getMode();
+        Display.Mode peakMode = currentMode;
+        for (Display.Mode mode : display.getSupportedModes()) {
+            if (mode.getPhysicalWidth() == currentMode.getPhysicalWidth()
+                    && mode.getPhysicalHeight() == currentMode.getPhysicalHeight()
+                    && mode.getRefreshRate() > peakMode.getRefreshRate()) {
+                peakMode = mode;
+            }
+        }
+
+        mWindowPreferredDisplayModeId =
+                ((WindowManager.LayoutParams) rootView.getLayoutParams()).preferredDisplayModeId;
+        mPeakDisplayModeId = peakMode.getModeId();
+        mPeakRefreshRateVoted = true;
+        updateWindowPreferredDisplayMode(mPeakDisplayModeId);
+    }
+
+    @TargetApi(Build.VERSION_CODES.R)
+    private void updateWindowPreferredDisplayMode(int modeId) {
+        final View rootView = getRootView();
+        if (!(rootView.getLayoutParams() instanceof WindowManager.LayoutParams)) {
+            return;
+        }
+        final WindowManager.LayoutParams wlp =
+                (WindowManager.LayoutParams) rootView.getLayoutParams();
+        if (wlp.preferredDisplayModeId != modeId) {
+            wlp.preferredDisplayModeId = modeId;
+            final WindowManager wm =
+                    (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+            wm.updateViewLayout(rootView, wlp);
+        }
+    }
+
+    /**
+     * Counts the intervals between the frames produced while the drawers are scrolling,
+     * through a frame callback kept posted to the {@link Choreographer} in the meantime.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private final class MotionFrameTracker implements Choreographer.FrameCallback {
+        final FrameIntervalCounter counter = new FrameIntervalCounter();
+
+        boolean tracking;
+        long lastFrameTimeNanos;
+
+        MotionFrameTracker() {
+        }
+
+        void start() {
+            if (tracking) {
+                return;
+            }
+            tracking = true;
+            lastFrameTimeNanos = 0;
+
+            float refreshRate = 60f;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                final Display display = getDisplay();
+                if (display != null) {
+                    refreshRate = display.getRefreshRate();
+                }
+            }
+            counter.setExpectedInterval((long) (1e9f / refreshRate));
+
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void stop() {
+            if (tracking) {
+                tracking = false;
+                Choreographer.getInstance().removeFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!tracking) {
+                return;
+            }
+            if (lastFrameTimeNanos != 0) {
+                counter.addInterval(frameTimeNanos - lastFrameTimeNanos);
+            }
+            lastFrameTimeNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
     /**
      * @return the fade color used for the content view
      */
@@ -1091,8 +2190,11 @@ public class SlidingDrawerLayout extends ViewGroup {
     public void setContentFadeColor(@ColorInt int color) {
         if (mContentFadeColor != color) {
             mContentFadeColor = color;
-            if ((mFlags & (FLAG_ANIMATING_DRAWER_OPENING | FLAG_ANIMATING_DRAWER_CLOSURE)) == 0
-                    && mScrollPercent > 0) {
+            final int alpha = color >>> 24;
+            for (int i = 0; i <= CONTENT_FADE_ALPHA_STEPS; i++) {
+                mContentFadeAlphas[i] = roundFloat(alpha * i / (float) CONTENT_FADE_ALPHA_STEPS);
+            }
+            if (!mStateEngine.isAnimating() && mScrollPercent > 0) {
                 invalidate();
             }
         }
@@ -1346,7 +2448,7 @@ public class SlidingDrawerLayout extends ViewGroup {
         if (mShownDrawer != null && mShownDrawer != mLeftDrawer && mShownDrawer != mRightDrawer) {
             dispatchDrawerScrollPercentChangeIfNeeded(0);
 
-            final int state = mFlags & SCROLL_STATE_MASK;
+            final int state = mStateEngine.getScrollState();
             if (state == SCROLL_STATE_IDLE) {
                 final View shownDrawer = mShownDrawer;
                 mShownDrawer = null;
@@ -1362,8 +2464,7 @@ public class SlidingDrawerLayout extends ViewGroup {
                 if ((mFlags & FLAG_DRAWER_HAS_BEEN_OPENED) != 0) {
                     mFlags &= ~FLAG_DRAWER_HAS_BEEN_OPENED;
                     if (mOnDrawerScrollListeners != null) {
-                        OnDrawerScrollListener[] listeners =
-                                mOnDrawerScrollListeners.toArray(sEmptyOnDrawerScrollListenerArray);
+                        OnDrawerScrollListener[] listeners = getOnDrawerScrollListenerArray();
                         for (OnDrawerScrollListener listener : listeners)
                             listener.onDrawerClosed(this, shownDrawer);
                     }
@@ -1379,9 +2480,9 @@ public class SlidingDrawerLayout extends ViewGroup {
                 }
             } else {
                 if (state == SCROLL_STATE_TOUCH_SCROLL) {
-                    clearTouch();
-                } else {
-                    mDrawerAnimator.cancel(true);
+                    resetTouch();
+                } else if (mDrawerSettler != null) {
+                    mDrawerSettler.cancel(true);
                 }
                 dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_IDLE);
             }
@@ -1436,6 +2537,10 @@ public class SlidingDrawerLayout extends ViewGroup {
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        mInLayout = true;
+        mLastWidthMeasureSpec = widthMeasureSpec;
+        mLastHeightMeasureSpec = heightMeasureSpec;
+
         final int childCount = getChildCount();
         final int layoutDirection = ViewCompat.getLayoutDirection(this);
 
@@ -1485,6 +2590,8 @@ public class SlidingDrawerLayout extends ViewGroup {
 
         for (int i = 0; i < childCount; i++) {
             View child = getChildAt(i);
+            // The hierarchy of the child may have changed since it was last measured.
+            ((LayoutParams) child.getLayoutParams()).layerUnfriendlinessResolved = false;
             if (isChildInLayout(child)) {
                 measureChild(child, childWidthMeasureSpecReferent, childHeightMeasureSpecReferent);
                 maxWidth = Math.max(maxWidth, child.getMeasuredWidth());
@@ -1521,6 +2628,7 @@ public class SlidingDrawerLayout extends ViewGroup {
                 resolveSizeAndState(maxWidth, widthMeasureSpec, childrenMeasuredStates),
                 resolveSizeAndState(maxHeight, heightMeasureSpec,
                         childrenMeasuredStates << MEASURED_HEIGHT_STATE_SHIFT));
+        mInLayout = false;
     }
 
     @Override
@@ -1580,121 +2688,127 @@ public class SlidingDrawerLayout extends ViewGroup {
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-        // Delays the running animation to ensure the active drawer will open or close normally
-        if (mDrawerAnimator != null && mDrawerAnimator.isRunning()) {
-            final boolean open = (mFlags & FLAG_ANIMATING_DRAWER_OPENING) != 0;
-            mDrawerAnimator.cancel(true);
-
-            if (mPostedDrawerRunnable == null) {
-                mPostedDrawerRunnable = new DrawerRunnable();
-                mPostedDrawerRunnable.initAndPostToQueue(mShownDrawer, open);
-
-            } else if (mPostedDrawerRunnable.isInMsgQueue) {
-                mPostedDrawerRunnable.initForPost(mShownDrawer, open);
-            } else {
-                mPostedDrawerRunnable.initAndPostToQueue(mShownDrawer, open);
-            }
-        }
-
+        mInLayout = true;
         final int parentLeft = getPaddingLeft();
         final int parentRight = right - left - getPaddingRight();
         final int parentTop = getPaddingTop();
         final int parentBottom = bottom - top - getPaddingBottom();
 
-        final int parentWidth = parentRight - parentLeft;
-        final int parentHeight = parentBottom - parentTop;
-
         final int layoutDirection = ViewCompat.getLayoutDirection(this);
 
         for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
             View child = getChildAt(i);
-            if (!isChildInLayout(child)) {
-                continue;
+            if (isChildInLayout(child)) {
+                layoutChild(child, parentLeft, parentTop, parentRight, parentBottom, layoutDirection);
             }
+        }
 
-            LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        // Lets the running settle carry on towards the endpoints recomputed above, so that
+        // the active drawer will open or close normally.
+        if (mDrawerSettler != null && mDrawerSettler.isRunning() && mStateEngine.isAnimating()) {
+            LayoutParams lp = (LayoutParams) mShownDrawer.getLayoutParams();
+            mDrawerSettler.retarget(
+                    mStateEngine.isAnimatingOpening() ? lp.finalLeft : lp.startLeft);
+        }
 
-            final int childWidth = child.getMeasuredWidth();
-            final int childHeight = child.getMeasuredHeight();
+        updateContentVisibility();
+        mInLayout = false;
+    }
 
-            final int childLeft;
-            final int childTop;
+    private void layoutChild(View child,
+                             int parentLeft, int parentTop, int parentRight, int parentBottom,
+                             int layoutDirection) {
+        final int parentWidth = parentRight - parentLeft;
+        final int parentHeight = parentBottom - parentTop;
 
-            final int horizontalGravity = GravityCompat.getAbsoluteGravity(
-                    lp.gravity, layoutDirection) & Gravity.HORIZONTAL_GRAVITY_MASK;
-            if (child == mContentView) {
-                switch (horizontalGravity) {
-                    case Gravity.LEFT:
-                        lp.startLeft = parentLeft;
-                        break;
-                    case Gravity.RIGHT:
-                        lp.startLeft = parentRight - childWidth;
-                        break;
-                    case Gravity.CENTER_HORIZONTAL:
-                    default:
-                        lp.startLeft = roundFloat(parentLeft + (parentWidth - childWidth) / 2f);
-                        break;
-                }
-                if (mShownDrawer == null) {
-                    lp.finalLeft = lp.startLeft;
+        final boolean transformScrolling = mTransformScrollingEnabled;
 
-                    childLeft = lp.startLeft;
-                } else {
-                    // Recalculates its finalLeft in case it changes.
-                    lp.finalLeft = lp.startLeft
-                            + (mShownDrawer == mLeftDrawer ?
-                                    mShownDrawer.getMeasuredWidth() : -mShownDrawer.getMeasuredWidth());
+        LayoutParams lp = (LayoutParams) child.getLayoutParams();
 
-                    childLeft = roundFloat(
-                            lp.startLeft + (lp.finalLeft - lp.startLeft) * mScrollPercent);
-                }
-            } else {
-                // We need to make sure of the opened drawer to be correctly displayed by this view,
-                // i.e., make it fill its entire layout space and not covered by the content view,
-                // so compute the start offset using the Math's ceil method to offset the drawer by
-                // at most 1 pixel over the ones of the ideal offset.
-                // For more, please refer to #scrollDrawerBy(View, int).
-                final int offset = (int) Math.ceil(childWidth / (double) SCROLL_RATIO_CONTENT_TO_DRAWER);
-
-                switch (horizontalGravity) {
-                    case Gravity.LEFT:
-                        lp.finalLeft = parentLeft;
-                        lp.startLeft = lp.finalLeft - offset;
-                        break;
-                    case Gravity.RIGHT:
-                        lp.finalLeft = parentRight - childWidth;
-                        lp.startLeft = lp.finalLeft + offset;
-                        break;
-                }
-                if (child == mShownDrawer) {
-                    childLeft = roundFloat(
-                            lp.startLeft + (lp.finalLeft - lp.startLeft) * mScrollPercent);
-                } else {
-                    childLeft = lp.startLeft;
+        final int childWidth = child.getMeasuredWidth();
+        final int childHeight = child.getMeasuredHeight();
 
-                    if (child.getVisibility() != INVISIBLE) {
-                        child.setVisibility(INVISIBLE);
-                    }
-                }
-            }
+        final int childLeft;
+        final int childTop;
 
-            final int verticalGravity =
-                    lp.gravity == Gravity.NO_GRAVITY ?
-                            Gravity.CENTER_VERTICAL : lp.gravity & Gravity.VERTICAL_GRAVITY_MASK;
-            switch (verticalGravity) {
-                case Gravity.TOP:
-                    childTop = parentTop;
+        final int horizontalGravity = GravityCompat.getAbsoluteGravity(
+                lp.gravity, layoutDirection) & Gravity.HORIZONTAL_GRAVITY_MASK;
+        if (child == mContentView) {
+            switch (horizontalGravity) {
+                case Gravity.LEFT:
+                    lp.startLeft = parentLeft;
                     break;
-                case Gravity.BOTTOM:
-                    childTop = parentBottom - childHeight;
+                case Gravity.RIGHT:
+                    lp.startLeft = parentRight - childWidth;
                     break;
-                case Gravity.CENTER_VERTICAL:
+                case Gravity.CENTER_HORIZONTAL:
                 default:
-                    childTop = roundFloat(parentTop + (parentHeight - childHeight) / 2f);
+                    lp.startLeft = roundFloat(parentLeft + (parentWidth - childWidth) / 2f);
+                    break;
+            }
+            if (mShownDrawer == null) {
+                lp.finalLeft = lp.startLeft;
+
+                childLeft = lp.startLeft;
+            } else {
+                // Recalculates its finalLeft in case it changes.
+                lp.finalLeft = lp.startLeft
+                        + (mShownDrawer == mLeftDrawer ?
+                                mShownDrawer.getMeasuredWidth() : -mShownDrawer.getMeasuredWidth());
+
+                childLeft = transformScrolling ? lp.startLeft : roundFloat(
+                        lp.startLeft + (lp.finalLeft - lp.startLeft) * mScrollPercent);
+            }
+        } else {
+            // We need to make sure of the opened drawer to be correctly displayed by this view,
+            // i.e., make it fill its entire layout space and not covered by the content view,
+            // so compute the start offset using the Math's ceil method to offset the drawer by
+            // at most 1 pixel over the ones of the ideal offset.
+            // For more, please refer to #offsetDrawerBy(View, int).
+            final int offset = (int) Math.ceil(childWidth / (double) SCROLL_RATIO_CONTENT_TO_DRAWER);
+
+            switch (horizontalGravity) {
+                case Gravity.LEFT:
+                    lp.finalLeft = parentLeft;
+                    lp.startLeft = lp.finalLeft - offset;
                     break;
+                case Gravity.RIGHT:
+                    lp.finalLeft = parentRight - childWidth;
+                    lp.startLeft = lp.finalLeft + offset;
+                    break;
+            }
+            if (child == mShownDrawer) {
+                childLeft = transformScrolling ? lp.startLeft : roundFloat(
+                        lp.startLeft + (lp.finalLeft - lp.startLeft) * mScrollPercent);
+            } else {
+                childLeft = lp.startLeft;
+
+                if (child.getVisibility() != INVISIBLE && !isDrawerWarmingUp(child)) {
+                    child.setVisibility(INVISIBLE);
+                }
             }
+        }
+
+        final int verticalGravity =
+                lp.gravity == Gravity.NO_GRAVITY ?
+                        Gravity.CENTER_VERTICAL : lp.gravity & Gravity.VERTICAL_GRAVITY_MASK;
+        switch (verticalGravity) {
+            case Gravity.TOP:
+                childTop = parentTop;
+                break;
+            case Gravity.BOTTOM:
+                childTop = parentBottom - childHeight;
+                break;
+            case Gravity.CENTER_VERTICAL:
+            default:
+                childTop = roundFloat(parentTop + (parentHeight - childHeight) / 2f);
+                break;
+        }
 
-            child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);
+        child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);
+        if (transformScrolling) {
+            child.setTranslationX(child == mContentView || child == mShownDrawer ?
+                    (lp.finalLeft - lp.startLeft) * mScrollPercent : 0);
         }
     }
 
@@ -1702,45 +2816,100 @@ public class SlidingDrawerLayout extends ViewGroup {
     protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
         // Make sure of the closed drawer(s) to be invisible
         if (child != mContentView && child != mShownDrawer) {
+            if (mDrawerWarmUp != null && mDrawerWarmUp.drawer == child) {
+                // Record the drawer being warmed up with nothing of it to be drawn, just to keep
+                // it in the drawn tree.
+                final int save = canvas.save();
+                canvas.clipRect(0, 0, 0, 0);
+                super.drawChild(canvas, child, drawingTime);
+                canvas.restoreToCount(save);
+                mDrawerWarmUp.drawn = true;
+            }
             return false;
         }
 
         final boolean issued;
         final int save = canvas.save();
+        final float contentTranslationX = mContentView.getTranslationX();
         if (child == mShownDrawer) {
+            final float clipLeft, clipRight;
             if (child == mLeftDrawer) {
-                canvas.clipRect(child.getLeft(), child.getTop(),
-                        mContentView.getLeft(), child.getBottom());
+                clipLeft = child.getLeft() + child.getTranslationX();
+                clipRight = mContentView.getLeft() + contentTranslationX;
             } else {
-                canvas.clipRect(mContentView.getRight(), child.getTop(),
-                        child.getRight(), child.getBottom());
+                clipLeft = mContentView.getRight() + contentTranslationX;
+                clipRight = child.getRight() + child.getTranslationX();
+            }
+            // Skip the drawer if none of it is uncovered by the content view.
+            if (clipLeft >= clipRight) {
+                mCulledChildDrawCount++;
+                canvas.restoreToCount(save);
+                return false;
             }
+            canvas.clipRect(clipLeft, child.getTop(), clipRight, child.getBottom());
+            trackChildLayer(child);
             issued = super.drawChild(canvas, child, drawingTime);
         } else {
+            // Clip the content view to the strip of it left within the bounds of this view, and
+            // skip both the content view and its fading if the strip is empty, e.g., when it is
+            // pushed out of this view by a drawer of the maximum width. As the shown drawer is
+            // clipped to the edge of the content view, there is no other part of the content view
+            // covered by a drawer.
+            final float visibleLeft = Math.max(getPaddingLeft(),
+                    child.getLeft() + contentTranslationX);
+            final float visibleRight = Math.min(getWidth() - getPaddingRight(),
+                    child.getRight() + contentTranslationX);
+            if (visibleLeft >= visibleRight) {
+                mCulledChildDrawCount++;
+                canvas.restoreToCount(save);
+                return false;
+            }
+            canvas.clipRect(visibleLeft, child.getTop(), visibleRight, child.getBottom());
+            trackChildLayer(child);
             issued = super.drawChild(canvas, child, drawingTime);
             // Draw the content view's fading
-            if (mScrollPercent > 0) {
-                final int color = Utils.dimColor(mContentFadeColor, 1 - mScrollPercent);
+            final int alpha = getContentFadeAlpha();
+            if (alpha > 0) {
                 if (mShownDrawer == mLeftDrawer) {
-                    canvas.clipRect(mContentView.getLeft(), child.getTop(),
+                    canvas.clipRect(mContentView.getLeft() + contentTranslationX, child.getTop(),
                             getRight() - getPaddingRight(), child.getBottom());
                     // mShownDrawer == mRightDrawer
                 } else {
                     canvas.clipRect(getPaddingLeft(), child.getTop(),
-                            mContentView.getRight(), child.getBottom());
+                            mContentView.getRight() + contentTranslationX, child.getBottom());
                 }
-                canvas.drawColor(color);
+                canvas.drawColor(alpha << 24 | mContentFadeColor & 0x00ffffff);
             }
         }
         canvas.restoreToCount(save);
         return issued;
     }
 
-    @Override
-    protected void onDetachedFromWindow() {
+    /**
+     * @return the alpha of the content fade for the current scroll percentage, looked up from
+     *         {@link #mContentFadeAlphas}
+     */
+    private int getContentFadeAlpha() {
+        return mContentFadeAlphas[roundFloat(mScrollPercent * CONTENT_FADE_ALPHA_STEPS)];
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if ((mFlags & FLAG_DRAWER_HAS_BEEN_OPENED) != 0) {
+            registerOnBackInvokedCallback();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        unregisterOnBackInvokedCallback();
+        cancelDrawerWarmUp();
         cancelRunningAnimatorAndPendingActions();
         closeDrawer(false);
+        // The window may outlive this view.
+        stopFrameRateBoost();
         if (mOpenDrawerOnGlobalLayoutListener != null) {
             mOpenDrawerOnGlobalLayoutListener.removeFromViewTreeObserver();
         }
@@ -1750,11 +2919,8 @@ public class SlidingDrawerLayout extends ViewGroup {
         if (mOpenStubDrawerRunnable != null) {
             mOpenStubDrawerRunnable.removeFromMsgQueue();
         }
-        if (mPostedDrawerRunnable != null && mPostedDrawerRunnable.isInMsgQueue) {
-            mPostedDrawerRunnable.resetAndRemoveFromQueue();
-        }
-        if (mDrawerAnimator != null && mDrawerAnimator.isRunning()) {
-            mDrawerAnimator.cancel(true);
+        if (mDrawerSettler != null && mDrawerSettler.isRunning()) {
+            mDrawerSettler.cancel(true);
         }
     }
 
@@ -1766,7 +2932,7 @@ public class SlidingDrawerLayout extends ViewGroup {
 
         if (disallowIntercept) {
             if ((mFlags & FLAG_TOUCH_INTERCEPTED) == 0) {
-                clearTouch();
+                resetTouch();
             }
             mFlags |= FLAG_DISALLOW_INTERCEPT_TOUCH_EVENT;
         } else {
@@ -1784,6 +2950,10 @@ public class SlidingDrawerLayout extends ViewGroup {
                 // The framework may have dropped the up or cancel event for the previous gesture
                 // due to an app switch, ANR, or some other state change.
                 resetTouch();
+                resolveGestureSnapshot();
+                if (mTouchPredictor != null) {
+                    mTouchPredictor.reset();
+                }
                 break;
 
             case MotionEvent.ACTION_POINTER_DOWN:
@@ -1803,7 +2973,7 @@ public class SlidingDrawerLayout extends ViewGroup {
 //                        mActivePointerId = ev.getPointerId(actionIndex);
 //                        mDownX = x;
 //                        mDownY = ev.getY(actionIndex);
-//                        markCurrTouchPoint(mDownX, mDownY);
+//                        markCurrTouchPoint(mDownX, mDownY, ev.getEventTime());
 //                        // This is a non-primary pointer falling on the content view after
 //                        // the primary one placed outside of the content in the ACTION_DOWN event,
 //                        // in which case, we should not call the dispatchTouchEvent() of the super
@@ -1821,14 +2991,31 @@ public class SlidingDrawerLayout extends ViewGroup {
 
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
+        if (mExternalDragging) {
+            // The drawer is under the control of someone else.
+            return false;
+        }
+
+        if ((mFlags & FLAG_NESTED_SCROLL_ACCEPTED) != 0) {
+            // The horizontal scroll is shared with us by the nested scrolling child, which
+            // is supposed to keep receiving its touch events without being cancelled.
+            return false;
+        }
+
+        if ((mFlags & FLAG_VERTICAL_GESTURE_LOCKED) != 0) {
+            // Leave the rest of the vertical gesture to our children, with no more touch tracking.
+            return false;
+        }
+
         if (mShownDrawer == null) {
-            if (!isDrawerSlidable(mLeftDrawer) && !isDrawerSlidable(mRightDrawer)) {
-                clearTouch();
+            if (mGestureSlidability == 0) {
+                // Nothing has been tracked since the touch state was reset as the gesture began
+                // or the last drawer was disabled in it.
                 return false;
             }
-        } else if (!isDrawerSlidable(mShownDrawer)) {
+        } else if (!isDrawerSlidableInGesture(mShownDrawer)) {
             try {
-                if ((mFlags & SCROLL_STATE_MASK) == SCROLL_STATE_TOUCH_SCROLL) {
+                if (mStateEngine.getScrollState() == SCROLL_STATE_TOUCH_SCROLL) {
                     closeDrawer(true);
                     return true;
                 }
@@ -1842,22 +3029,18 @@ public class SlidingDrawerLayout extends ViewGroup {
                     final float x = ev.getX();
 
                     if (mShownDrawer == mLeftDrawer) {
-                        return x > mContentView.getLeft() && x <= getWidth() - getPaddingRight();
+                        return x > mGestureContentLeft && x <= mGestureRightBound;
                     }
                     // mShownDrawer == mRightDrawer
-                    return x < mContentView.getRight() && x >= getPaddingLeft();
+                    return x < mGestureContentRight && x >= mGestureLeftBound;
                 }
 
                 return false;
             } finally {
-                clearTouch();
+                resetTouch();
             }
         }
 
-        if (mVelocityTracker == null)
-            mVelocityTracker = VelocityTracker.obtain();
-        mVelocityTracker.addMovement(ev);
-
         boolean intercept = false;
         switch (ev.getAction() & MotionEvent.ACTION_MASK) {
             case MotionEvent.ACTION_DOWN:
@@ -1865,22 +3048,24 @@ public class SlidingDrawerLayout extends ViewGroup {
 
                 if (mScrollPercent > 0) {
                     if (mShownDrawer == mLeftDrawer) {
-                        if (mDownX > mContentView.getLeft()) {
-                            if (mDownX <= getWidth() - getPaddingRight()) {
+                        if (mDownX > mGestureContentLeft) {
+                            if (mDownX <= mGestureRightBound) {
                                 mFlags |= FLAG_FINGER_DOWNS_ON_CONTENT_WHEN_DRAWER_IS_OPEN;
                             }
                             intercept = true;
                             break;
                         }
                     } else if (/* mShownDrawer == mRightDrawer && */
-                            mDownX < mContentView.getRight()) {
-                        if (mDownX >= getPaddingLeft()) {
+                            mDownX < mGestureContentRight) {
+                        if (mDownX >= mGestureLeftBound) {
                             mFlags |= FLAG_FINGER_DOWNS_ON_CONTENT_WHEN_DRAWER_IS_OPEN;
                         }
                         intercept = true;
                         break;
                     }
                     intercept = mScrollPercent != 1;
+                } else if (mShownDrawer == null) {
+                    tryWarmUpDrawer();
                 }
                 break;
 
@@ -1893,7 +3078,9 @@ public class SlidingDrawerLayout extends ViewGroup {
                     break;
                 }
 
-                intercept = tryHandleSlidingEvent();
+                if (!tryLockVerticalGesture()) {
+                    intercept = tryHandleSlidingEvent();
+                }
                 break;
 
             case MotionEvent.ACTION_POINTER_UP:
@@ -1902,7 +3089,7 @@ public class SlidingDrawerLayout extends ViewGroup {
 
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
-                clearTouch();
+                resetTouch();
                 break;
         }
         if (intercept) {
@@ -1914,29 +3101,39 @@ public class SlidingDrawerLayout extends ViewGroup {
     @SuppressLint("ClickableViewAccessibility")
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        if (mExternalDragging) {
+            // Swallow what is left of the gesture that was dragging the drawer before it was
+            // taken over from outside.
+            return true;
+        }
+
+        final int action = event.getAction() & MotionEvent.ACTION_MASK;
+        if ((mFlags & FLAG_VERTICAL_GESTURE_LOCKED) != 0
+                && action != MotionEvent.ACTION_UP && action != MotionEvent.ACTION_CANCEL) {
+            // Skip all the per-move work for the vertical gesture till it ends.
+            return true;
+        }
+
         if (mShownDrawer == null) {
-            if (!isDrawerSlidable(mLeftDrawer) && !isDrawerSlidable(mRightDrawer)) {
-                clearTouch();
+            if (mGestureSlidability == 0) {
+                // Nothing has been tracked since the touch state was reset as the gesture began
+                // or the last drawer was disabled in it.
                 return false;
             }
-        } else if (!isDrawerSlidable(mShownDrawer)) {
+        } else if (!isDrawerSlidableInGesture(mShownDrawer)) {
             try {
-                if ((mFlags & SCROLL_STATE_MASK) == SCROLL_STATE_TOUCH_SCROLL) {
+                if (mStateEngine.getScrollState() == SCROLL_STATE_TOUCH_SCROLL) {
                     closeDrawer(true);
                     return true;
                 }
 
                 return false;
             } finally {
-                clearTouch();
+                resetTouch();
             }
         }
 
-        if (mVelocityTracker == null)
-            mVelocityTracker = VelocityTracker.obtain();
-        mVelocityTracker.addMovement(event);
-
-        switch (event.getAction() & MotionEvent.ACTION_MASK) {
+        switch (action) {
             case MotionEvent.ACTION_POINTER_DOWN:
                 onPointerDown(event);
                 break;
@@ -1952,17 +3149,35 @@ public class SlidingDrawerLayout extends ViewGroup {
                     dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_TOUCH_SCROLL);
 
                     cancelRunningAnimatorAndPendingActions();
+                    // Where the settle is caught
+                    resolveGestureChildBounds();
+
+                    mPredictedTouchX = mLastTouchX;
                 }
-                if ((mFlags & SCROLL_STATE_MASK) == SCROLL_STATE_TOUCH_SCROLL) {
-                    scrollDrawerBy(mShownDrawer,
-                            roundFloat((mTouchX[mTouchX.length - 1] - mTouchX[mTouchX.length - 2])
-                                    / (float) SCROLL_RATIO_CONTENT_TO_DRAWER));
+                if (mStateEngine.getScrollState() == SCROLL_STATE_TOUCH_SCROLL) {
+                    final float dx;
+                    if (mTouchPredictor != null) {
+                        final float x = mTouchPredictor.predictX(
+                                mTouchSamples.getLatestEventTime() + mTouchPredictionTime);
+                        dx = x - mPredictedTouchX;
+                        mPredictedTouchX = x;
+                    } else {
+                        dx = mTouchSamples.getLatestX() - mLastTouchX;
+                    }
+                    if (mDragCoalescingEnabled) {
+                        mPendingDragDx += dx;
+                        schedulePendingDrag();
+                    } else {
+                        scrollDrawerBy(mShownDrawer, dx / (float) SCROLL_RATIO_CONTENT_TO_DRAWER);
+                    }
                     break;
                 }
 
                 // Check whether we should handle the subsequent touch events after requiring
                 // to intercept them on down event as the user slides the drawer.
-                tryHandleSlidingEvent();
+                if (!tryLockVerticalGesture()) {
+                    tryHandleSlidingEvent();
+                }
                 break;
 
             case MotionEvent.ACTION_POINTER_UP:
@@ -1972,29 +3187,22 @@ public class SlidingDrawerLayout extends ViewGroup {
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
                 try {
-                    if ((mFlags & SCROLL_STATE_MASK) == SCROLL_STATE_TOUCH_SCROLL) {
-                        if (mScrollPercent == 1 || mScrollPercent == 0) {
-                            dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_IDLE);
-                            break;
-                        }
+                    if (mStateEngine.getScrollState() == SCROLL_STATE_TOUCH_SCROLL) {
+                        // Catch up with the user's finger before the drawer is released
+                        applyPendingDrag();
 
-                        mVelocityTracker.computeCurrentVelocity(1000);
-                        final float vx = mVelocityTracker.getXVelocity(mActivePointerId);
-                        if (mShownDrawer == mLeftDrawer && vx >= mMinimumFlingVelocity
-                                || mShownDrawer == mRightDrawer && vx <= -mMinimumFlingVelocity) {
-                            openDrawerInternal(mShownDrawer, true);
-                            break;
-                        } else if (mShownDrawer == mLeftDrawer && vx <= -mMinimumFlingVelocity
-                                || mShownDrawer == mRightDrawer && vx >= mMinimumFlingVelocity) {
-                            closeDrawer(true);
+                        if (!DrawerStateEngine.needsSettling(mScrollPercent)) {
+                            dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_IDLE);
                             break;
                         }
 
-                        if (mScrollPercent >= 0.5f) {
-                            openDrawerInternal(mShownDrawer, true);
-                        } else {
-                            closeDrawer(true);
+                        // Take in the final position of the pointer in the ACTION_UP event,
+                        // which is also a sample for the velocity estimation.
+                        if (action == MotionEvent.ACTION_UP) {
+                            onPointerMove(event);
                         }
+                        settleDraggedDrawer(
+                                mVelocityEstimator.computeXVelocity(mTouchSamples, 1000));
 
                         // Close the shown drawer even if it is being animated as user clicks
                         // the content area
@@ -2003,30 +3211,78 @@ public class SlidingDrawerLayout extends ViewGroup {
                     }
                     break;
                 } finally {
-                    clearTouch();
+                    resetTouch();
                 }
         }
         return true;
     }
 
+    /**
+     * Opens or closes the drawer released by user, according to the horizontal velocity of
+     * the release and how far the drawer has been opened.
+     *
+     * @param vx the horizontal velocity of the release, in pixels per second
+     */
+    private void settleDraggedDrawer(float vx) {
+        // The drawer moves at a fraction of the speed of the user's finger.
+        mSettleVelocity = vx / SCROLL_RATIO_CONTENT_TO_DRAWER;
+        switch (mStateEngine.resolveSettleAction(mShownDrawer == mLeftDrawer, mScrollPercent, vx)) {
+            case DrawerStateEngine.SETTLE_OPEN:
+                openDrawerInternal(mShownDrawer, true);
+                break;
+            case DrawerStateEngine.SETTLE_CLOSE:
+                closeDrawer(true);
+                break;
+        }
+        mSettleVelocity = 0;
+    }
+
+    /**
+     * Classifies the current gesture as a vertical one if the pointer has moved vertically past
+     * the touch slop and more than it has horizontally while all the drawers are closed, in which
+     * case no drawer could handle the gesture any more, and thus it is locked to be ignored for
+     * the rest of its life, with the touch tracking stopped.
+     *
+     * @return true if the gesture is locked as a vertical one
+     */
+    private boolean tryLockVerticalGesture() {
+        // An intercepted gesture, e.g., one landing on the content view of an open drawer to
+        // close it with a tap, still needs tracking till it ends whichever way it goes.
+        final boolean gestureClaimed = (mFlags & (FLAG_TOUCH_INTERCEPTED
+                | FLAG_FINGER_DOWNS_ON_CONTENT_WHEN_DRAWER_IS_OPEN)) != 0;
+        if (DrawerStateEngine.shouldLockVerticalGesture(gestureClaimed, mScrollPercent,
+                mTouchSamples.getLatestX() - mDownX, mTouchSamples.getLatestY() - mDownY,
+                mTouchSlop)) {
+            resetTouch();
+            mFlags |= FLAG_VERTICAL_GESTURE_LOCKED;
+            return true;
+        }
+        return false;
+    }
+
     private boolean tryHandleSlidingEvent() {
-        final float dx = mTouchX[mTouchX.length - 1] - mDownX;
+        final float dx = mTouchSamples.getLatestX() - mDownX;
         final float absDx = Math.abs(dx);
 
         if (absDx < mTouchSlop) {
             return false;
         }
 
-        final float absDy = Math.abs(mTouchY[mTouchY.length - 1] - mDownY);
+        final float absDy = Math.abs(mTouchSamples.getLatestY() - mDownY);
+
+        // The drawer may have been moved by a settle still running at the beginning of
+        // the gesture, or started after that.
+        if (mScrollPercent != mGestureScrollPercent) {
+            resolveGestureChildBounds();
+        }
 
         boolean handle = false;
         if (mLeftDrawer != null && (mShownDrawer == null || mShownDrawer == mLeftDrawer)) {
             if (mScrollPercent == 0) {
-                final int left = getPaddingLeft();
-                if (mDownX >= left && mDownX <= left + mContentSensitiveEdgeSize) {
+                if (mDownX >= mGestureLeftBound && mDownX <= mGestureLeftEdgeRight) {
                     handle = dx > mTouchSlop && dx > absDy;
                 }
-            } else if (mScrollPercent == 1 && mDownX <= mContentView.getLeft()) {
+            } else if (mScrollPercent == 1 && mDownX <= mGestureContentLeft) {
                 handle = dx < -mTouchSlop && dx < -absDy;
             } else {
                 handle = true;
@@ -2043,11 +3299,10 @@ public class SlidingDrawerLayout extends ViewGroup {
         }
         if (mRightDrawer != null && (mShownDrawer == null || mShownDrawer == mRightDrawer)) {
             if (mScrollPercent == 0) {
-                final int right = getWidth() - getPaddingRight();
-                if (mDownX >= right - mContentSensitiveEdgeSize && mDownX <= right) {
+                if (mDownX >= mGestureRightEdgeLeft && mDownX <= mGestureRightBound) {
                     handle = dx < -mTouchSlop && dx < -absDy;
                 }
-            } else if (mScrollPercent == 1 && mDownX >= mRightDrawer.getLeft()) {
+            } else if (mScrollPercent == 1 && mDownX >= mGestureRightDrawerLeft) {
                 handle = dx > mTouchSlop && dx > absDy;
             } else {
                 handle = true;
@@ -2066,6 +3321,117 @@ public class SlidingDrawerLayout extends ViewGroup {
         return false;
     }
 
+    /**
+     * Resolves the drawers' slidability and the bounds to hit-test the touch points against
+     * once at the beginning of a touch gesture, so that none of the subsequent touch events
+     * in the gesture needs to resolve them again.
+     */
+    private void resolveGestureSnapshot() {
+        mGestureSlidability = resolveGestureSlidability();
+        // Nothing else will be read if no drawer can be dragged or is currently shown.
+        if (mGestureSlidability == 0 && mShownDrawer == null) {
+            return;
+        }
+
+        mGestureLeftBound = getPaddingLeft();
+        mGestureRightBound = getWidth() - getPaddingRight();
+        mGestureLeftEdgeRight = mGestureLeftBound + mContentSensitiveEdgeSize;
+        mGestureRightEdgeLeft = mGestureRightBound - mContentSensitiveEdgeSize;
+        resolveGestureChildBounds();
+    }
+
+    /**
+     * Takes the bounds of the content view and the right drawer into the gesture snapshot,
+     * at the beginning of the gesture or again after a settle has moved them in the gesture.
+     */
+    private void resolveGestureChildBounds() {
+        mGestureScrollPercent = mScrollPercent;
+        if (mContentView != null) {
+            final float contentTranslationX = mContentView.getTranslationX();
+            mGestureContentLeft = roundFloat(mContentView.getLeft() + contentTranslationX);
+            mGestureContentRight = roundFloat(mContentView.getRight() + contentTranslationX);
+        }
+        if (mRightDrawer != null) {
+            mGestureRightDrawerLeft = roundFloat(mRightDrawer.getLeft() + mRightDrawer.getTranslationX());
+        }
+    }
+
+    private int resolveGestureSlidability() {
+        int slidability = 0;
+        if (isDrawerSlidable(mLeftDrawer)) {
+            slidability |= GESTURE_LEFT_DRAWER_SLIDABLE;
+        }
+        if (isDrawerSlidable(mRightDrawer)) {
+            slidability |= GESTURE_RIGHT_DRAWER_SLIDABLE;
+        }
+        return slidability;
+    }
+
+    /**
+     * @return whether the given drawer can be dragged by user in the current touch gesture,
+     *         according to the snapshot taken at its beginning.
+     */
+    private boolean isDrawerSlidableInGesture(View drawer) {
+        if (drawer == null) {
+            return false;
+        }
+        return (mGestureSlidability & (drawer == mLeftDrawer ?
+                GESTURE_LEFT_DRAWER_SLIDABLE : GESTURE_RIGHT_DRAWER_SLIDABLE)) != 0;
+    }
+
+    /**
+     * @return whether the current gesture starts from the touch-sensitive edge of the content
+     *         view for the left drawer, which can be dragged by user in the gesture
+     */
+    private boolean isGestureOnLeftDrawerEdge() {
+        return (mGestureSlidability & GESTURE_LEFT_DRAWER_SLIDABLE) != 0
+                && mDownX >= mGestureLeftBound && mDownX <= mGestureLeftEdgeRight;
+    }
+
+    /**
+     * @return whether the current gesture starts from the touch-sensitive edge of the content
+     *         view for the right drawer, which can be dragged by user in the gesture
+     */
+    private boolean isGestureOnRightDrawerEdge() {
+        return (mGestureSlidability & GESTURE_RIGHT_DRAWER_SLIDABLE) != 0
+                && mDownX >= mGestureRightEdgeLeft && mDownX <= mGestureRightBound;
+    }
+
+    /**
+     * Starts warming up the drawer whose touch-sensitive edge the current gesture starts from,
+     * if any. The one with the nearer edge is chosen if the gesture falls on both edges.
+     */
+    private void tryWarmUpDrawer() {
+        final boolean onLeftEdge = isGestureOnLeftDrawerEdge();
+        final boolean onRightEdge = isGestureOnRightDrawerEdge();
+        final int gravity;
+        if (onLeftEdge && onRightEdge) {
+            gravity = mDownX - mGestureLeftBound <= mGestureRightBound - mDownX ?
+                    Gravity.LEFT : Gravity.RIGHT;
+        } else if (onLeftEdge) {
+            gravity = Gravity.LEFT;
+        } else if (onRightEdge) {
+            gravity = Gravity.RIGHT;
+        } else {
+            return;
+        }
+
+        if (mDrawerWarmUp == null) {
+            mDrawerWarmUp = new DrawerWarmUp();
+        }
+        mDrawerWarmUp.start(gravity);
+    }
+
+    private boolean isDrawerWarmingUp(View drawer) {
+        return mDrawerWarmUp != null && mDrawerWarmUp.drawer == drawer;
+    }
+
+    private void cancelDrawerWarmUp() {
+        if (mDrawerWarmUp != null) {
+            mDrawerWarmUp.cancel(true);
+        }
+    }
+
     private void requestParentDisallowInterceptTouchEvent() {
         ViewParent parent = getParent();
         if (parent != null) {
@@ -2078,7 +3444,7 @@ public class SlidingDrawerLayout extends ViewGroup {
         mActivePointerId = e.getPointerId(actionIndex);
         mDownX = e.getX(actionIndex);
         mDownY = e.getY(actionIndex);
-        markCurrTouchPoint(mDownX, mDownY);
+        markCurrTouchPoint(mDownX, mDownY, e.getEventTime());
     }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
@@ -2089,7 +3455,22 @@ public class SlidingDrawerLayout extends ViewGroup {
                     + mActivePointerId + " not found. Did any MotionEvents get skipped?");
             return false;
         }
-        markCurrTouchPoint(e.getX(pointerIndex), e.getY(pointerIndex));
+        mLastTouchX = mTouchSamples.size() > 0 ? mTouchSamples.getLatestX() : e.getX(pointerIndex);
+        // Take in all the samples batched into this event since the previous one was delivered,
+        // in chronological order, as well as the current one.
+        for (int i = 0, historySize = e.getHistorySize(); i < historySize; i++) {
+            final float x = e.getHistoricalX(pointerIndex, i);
+            final long eventTime = e.getHistoricalEventTime(i);
+            mTouchSamples.add(x, e.getHistoricalY(pointerIndex, i), eventTime);
+            if (mTouchPredictor != null) {
+                mTouchPredictor.addSample(x, eventTime);
+            }
+        }
+        final float x = e.getX(pointerIndex);
+        mTouchSamples.add(x, e.getY(pointerIndex), e.getEventTime());
+        if (mTouchPredictor != null) {
+            mTouchPredictor.addSample(x, e.getEventTime());
+        }
         return true;
     }
 
@@ -2103,34 +3484,78 @@ public class SlidingDrawerLayout extends ViewGroup {
             mActivePointerId = e.getPointerId(newPointerIndex);
             mDownX = e.getX(newPointerIndex);
             mDownY = e.getY(newPointerIndex);
-            markCurrTouchPoint(mDownX, mDownY);
+            markCurrTouchPoint(mDownX, mDownY, e.getEventTime());
+        }
+    }
+
+    /**
+     * Restarts the sampling of the active pointer from the given point, as the one being
+     * tracked changes.
+     */
+    private void markCurrTouchPoint(float x, float y, long eventTime) {
+        mTouchSamples.clear();
+        mTouchSamples.add(x, y, eventTime);
+        mLastTouchX = x;
+        if (mTouchPredictor != null) {
+            mTouchPredictor.restart();
+            mTouchPredictor.addSample(x, eventTime);
+            mPredictedTouchX = x;
+        }
+    }
+
+    private void schedulePendingDrag() {
+        if ((mFlags & FLAG_PENDING_DRAG_SCHEDULED) == 0) {
+            mFlags |= FLAG_PENDING_DRAG_SCHEDULED;
+            if (mPendingDragRunnable == null) {
+                mPendingDragRunnable = this::applyPendingDrag;
+            }
+            ViewCompat.postOnAnimation(this, mPendingDragRunnable);
         }
     }
 
-    private void markCurrTouchPoint(float x, float y) {
-        System.arraycopy(mTouchX, 1, mTouchX, 0, mTouchX.length - 1);
-        mTouchX[mTouchX.length - 1] = x;
-        System.arraycopy(mTouchY, 1, mTouchY, 0, mTouchY.length - 1);
-        mTouchY[mTouchY.length - 1] = y;
+    /**
+     * Scrolls the dragged drawer by the drag deltas accumulated so far, keeping the sub-pixel
+     * remainder for the next time.
+     */
+    /*synthetic*/ void applyPendingDrag() {
+        if ((mFlags & FLAG_PENDING_DRAG_SCHEDULED) != 0) {
+            mFlags &= ~FLAG_PENDING_DRAG_SCHEDULED;
+            removeCallbacks(mPendingDragRunnable);
+        }
+        if (mPendingDragDx != 0) {
+            if (mStateEngine.getScrollState() != SCROLL_STATE_TOUCH_SCROLL) {
+                mPendingDragDx = 0;
+            } else if (mTransformScrollingEnabled) {
+                // No sub-pixel remainder to keep, as the drawer can be scrolled by any fraction
+                final float dx = mPendingDragDx / (float) SCROLL_RATIO_CONTENT_TO_DRAWER;
+                mPendingDragDx = 0;
+                scrollDrawerBy(mShownDrawer, dx);
+            } else {
+                final int dx = roundFloat(mPendingDragDx / (float) SCROLL_RATIO_CONTENT_TO_DRAWER);
+                mPendingDragDx -= dx * SCROLL_RATIO_CONTENT_TO_DRAWER;
+                scrollDrawerBy(mShownDrawer, dx);
+            }
+        }
     }
 
-    private void clearTouch() {
-        if (mVelocityTracker != null) {
-            mVelocityTracker.recycle();
-            mVelocityTracker = null;
+    private void cancelPendingDrag() {
+        if ((mFlags & FLAG_PENDING_DRAG_SCHEDULED) != 0) {
+            mFlags &= ~FLAG_PENDING_DRAG_SCHEDULED;
+            removeCallbacks(mPendingDragRunnable);
         }
-        resetTouch();
+        mPendingDragDx = 0;
     }
 
     private void resetTouch() {
         mTmpDrawer = null;
+        cancelPendingDrag();
+        cancelDrawerWarmUp();
         mActivePointerId = ViewDragHelper.INVALID_POINTER;
         // Clear all the touch flags except for FLAG_DISALLOW_INTERCEPT_TOUCH_EVENT
         mFlags &= ~(FLAG_FINGER_DOWNS_ON_CONTENT_WHEN_DRAWER_IS_OPEN
-                | FLAG_TOUCH_INTERCEPTED);
-        if (mVelocityTracker != null) {
-            mVelocityTracker.clear();
-        }
+                | FLAG_TOUCH_INTERCEPTED
+                | FLAG_VERTICAL_GESTURE_LOCKED);
+        mTouchSamples.clear();
     }
 
     @Override
@@ -2234,18 +3659,31 @@ public class SlidingDrawerLayout extends ViewGroup {
      * @see #closeDrawer(boolean)
      */
     public void openDrawer(@Nullable View drawer, boolean animate) {
+        openDrawer(drawer, animate, SystemClock.uptimeMillis());
+    }
+
+    private void openDrawer(View drawer, boolean animate, long requestTime) {
         if (drawer == null) return;
 
         if (mShownDrawer == null) {
             if (drawer == mLeftDrawer || drawer == mRightDrawer) {
                 if (isStubDrawer(drawer)) {
-                    drawer = inflateStubDrawer((ViewStub) drawer);
+                    if (drawer == mLeftDrawer) {
+                        drawer = mLeftDrawer = inflateStubDrawer((ViewStub) mLeftDrawer);
+                    } else {
+                        drawer = mRightDrawer = inflateStubDrawer((ViewStub) mRightDrawer);
+                    }
 
                     if (mOpenStubDrawerRunnable != null) {
                         mOpenStubDrawerRunnable.removeFromMsgQueue();
                     }
-                    mOpenStubDrawerRunnable = new OpenStubDrawerRunnable(drawer, animate);
-                    post(mOpenStubDrawerRunnable);
+                    if (layoutInflatedDrawerNow(drawer)) {
+                        openDrawerInternal(drawer, animate, requestTime);
+                    } else {
+                        mOpenStubDrawerRunnable =
+                                new OpenStubDrawerRunnable(drawer, animate, requestTime);
+                        post(mOpenStubDrawerRunnable);
+                    }
 
                 } else {
                     if (mOpenStubDrawerRunnable != null) {
@@ -2255,19 +3693,11 @@ public class SlidingDrawerLayout extends ViewGroup {
                         mOpenStubDrawerRunnable.removeFromMsgQueue();
                     }
 
-                    openDrawerInternal(drawer, animate);
+                    openDrawerInternal(drawer, animate, requestTime);
                 }
             }
         } else if (mShownDrawer == drawer) {
-            if (mPostedDrawerRunnable != null && mPostedDrawerRunnable.isInMsgQueue) {
-                if (animate) {
-                    mPostedDrawerRunnable.initForPost(drawer, true);
-                    return;
-                } else {
-                    mPostedDrawerRunnable.resetAndRemoveFromQueue();
-                }
-            }
-            openDrawerInternal(drawer, animate);
+            openDrawerInternal(drawer, animate, requestTime);
 
         } else if (drawer == mLeftDrawer) {
             Log.e(TAG, "Can't open the left drawer while the right is open.");
@@ -2277,16 +3707,25 @@ public class SlidingDrawerLayout extends ViewGroup {
     }
 
     private void openDrawerInternal(View drawer, boolean animate) {
+        openDrawerInternal(drawer, animate, 0);
+    }
+
+    /**
+     * @param requestTime the time in the {@link SystemClock#uptimeMillis()} time base at which
+     *                    the drawer was requested to open, to measure the latency of the opening
+     *                    from, or 0 if the opening is not requested by a call to
+     *                    {@link #openDrawer(View, boolean)}
+     */
+    private void openDrawerInternal(View drawer, boolean animate, long requestTime) {
         if (drawer == mLeftDrawer && isChildInLayout(mLeftDrawer)
                 || drawer == mRightDrawer && isChildInLayout(mRightDrawer)) {
             LayoutParams lp = (LayoutParams) drawer.getLayoutParams();
             if (animate) {
-                if (smoothScrollDrawerTo(drawer, lp.finalLeft)) {
-                    mFlags |= FLAG_ANIMATING_DRAWER_OPENING;
-                    mFlags &= ~FLAG_ANIMATING_DRAWER_CLOSURE;
+                if (smoothScrollDrawerTo(drawer, lp.finalLeft, requestTime)) {
+                    mStateEngine.setAnimatingOpening();
                 }
             } else {
-                openOrCloseDrawerImmediately(drawer, lp.finalLeft - drawer.getLeft());
+                openOrCloseDrawerImmediately(drawer, lp.finalLeft);
             }
         }
     }
@@ -2303,51 +3742,235 @@ public class SlidingDrawerLayout extends ViewGroup {
             LayoutParams lp = (LayoutParams) mShownDrawer.getLayoutParams();
             if (animate) {
                 if (smoothScrollDrawerTo(mShownDrawer, lp.startLeft)) {
-                    mFlags |= FLAG_ANIMATING_DRAWER_CLOSURE;
-                    mFlags &= ~FLAG_ANIMATING_DRAWER_OPENING;
+                    mStateEngine.setAnimatingClosure();
                 }
             } else {
-                openOrCloseDrawerImmediately(mShownDrawer, lp.startLeft - mShownDrawer.getLeft());
+                openOrCloseDrawerImmediately(mShownDrawer, lp.startLeft);
             }
         }
     }
 
-    private void openOrCloseDrawerImmediately(View drawer, int dx) {
-        if (dx != 0) {
-            if (mDrawerAnimator != null && mDrawerAnimator.isRunning()) {
-                mDrawerAnimator.cancel(true);
+    /**
+     * Begins an external drag of the drawer on the given edge.
+     *
+     * @see #beginExternalDrag(View)
+     */
+    @Nullable
+    public View beginExternalDrag(@EdgeGravity int gravity) {
+        final int absoluteGravity = Utils.getAbsoluteGravity(this, gravity);
+        switch (absoluteGravity) {
+            case Gravity.LEFT:
+                return beginExternalDrag(mLeftDrawer);
+            case Gravity.RIGHT:
+                return beginExternalDrag(mRightDrawer);
+        }
+        return null;
+    }
+
+    /**
+     * Begins an external drag of the given drawer, during which the drawer is scrolled only by
+     * {@link #setScrollPercent(View, float)}, e.g., in step with a scrubber or the progress of
+     * some coordinated motion, until {@link #endExternalDrag()} is called.
+     * <p>
+     * In the meantime, the drawers are in the {@link #SCROLL_STATE_TOUCH_SCROLL} state, and
+     * neither the user's touches nor the nested scrolls can drag them. Opening or closing
+     * the drawer through {@link #openDrawer(View, boolean)} or {@link #closeDrawer(boolean)}
+     * ends the external drag as well.
+     * <p>
+     * <strong>NOTE:</strong> This will only work if there is no drawer open or the drawer
+     * is the one currently shown. A drawer still to be inflated from its ViewStub is inflated
+     * and laid out first, and the view inflated is the one to be dragged, which is what
+     * this returns and is to be passed to {@link #setScrollPercent(View, float)} then.
+     * If it can not be laid out yet, e.g., while this view is being laid out, the drag
+     * will not begin, but can be begun again once a layout pass has been done.
+     *
+     * @return the drawer being dragged, or null if the external drag has not begun
+     */
+    @Nullable
+    public View beginExternalDrag(@Nullable View drawer) {
+        if (drawer == null || drawer != mLeftDrawer && drawer != mRightDrawer
+                || mShownDrawer != null && mShownDrawer != drawer) {
+            return null;
+        }
+        if (mExternalDragging) {
+            return mShownDrawer;
+        }
+
+        if (mShownDrawer == null && isStubDrawer(drawer)) {
+            if (drawer == mLeftDrawer) {
+                drawer = mLeftDrawer = inflateStubDrawer((ViewStub) mLeftDrawer);
             } else {
-                mShownDrawer = drawer;
-                dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_AUTO_SCROLL);
+                drawer = mRightDrawer = inflateStubDrawer((ViewStub) mRightDrawer);
+            }
+            if (!layoutInflatedDrawerNow(drawer)) {
+                return null;
             }
-            scrollDrawerBy(mShownDrawer, dx);
+        }
+
+        // Take the drawer away from anything else moving it.
+        resetTouch();
+        cancelRunningAnimatorAndPendingActions();
+
+        mShownDrawer = drawer;
+        mFlags &= ~FLAG_NESTED_DRAGGING;
+        mExternalDragging = true;
+        dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_TOUCH_SCROLL);
+        return drawer;
+    }
+
+    /**
+     * @return whether the shown drawer is being dragged from outside this view
+     * @see #beginExternalDrag(View)
+     */
+    public boolean isExternallyDragging() {
+        return mExternalDragging;
+    }
+
+    /**
+     * Scrolls the given drawer straight to the given scroll percentage, in the same way as
+     * the user's finger drags it, without any animation or layout involved. This is cheap
+     * enough to be called for every frame.
+     * <p>
+     * This only works during an external drag of the drawer, begun through
+     * {@link #beginExternalDrag(View)}, and does nothing otherwise, e.g., after the drawer
+     * has been taken over by an {@link #openDrawer(View, boolean)} call.
+     * <p>
+     * If the drawer has not been laid out yet, the percentage is only recorded, and the drawer
+     * is put at the position matching it by the first layout pass of it instead.
+     *
+     * @param percent the scroll percentage, clamped to the range [0, 1]
+     * @return true if the percentage has been applied to the drawer
+     * @throws IllegalArgumentException if the percentage is NaN or infinite
+     * @see #beginExternalDrag(View)
+     */
+    public boolean setScrollPercent(
+            @Nullable View drawer, @FloatRange(from = 0.0, to = 1.0) float percent) {
+        if (Float.isNaN(percent) || Float.isInfinite(percent)) {
+            throw new IllegalArgumentException(
+                    "The scroll percent must be finite, but your is " + percent);
+        }
+        if (drawer == null || drawer != mShownDrawer || !mExternalDragging) {
+            return false;
+        }
+
+        percent = Math.max(0, Math.min(percent, 1));
+        LayoutParams lp = (LayoutParams) mShownDrawer.getLayoutParams();
+        if (lp.finalLeft == lp.startLeft) {
+            // Not laid out yet, so leave it to the layout pass to come to put the drawer at
+            // the position matching the percentage.
+            dispatchDrawerScrollPercentChangeIfNeeded(percent);
+        } else {
+            scrollDrawerTo(mShownDrawer, lp.startLeft + (lp.finalLeft - lp.startLeft) * percent);
+        }
+        return true;
+    }
+
+    /**
+     * Ends the external drag in progress, opening the drawer if at least half of it has been
+     * scrolled into view or closing it otherwise, as if it were released by user.
+     *
+     * @see #beginExternalDrag(View)
+     */
+    public void endExternalDrag() {
+        if (!mExternalDragging) {
+            return;
+        }
+
+        mExternalDragging = false;
+        if (!DrawerStateEngine.needsSettling(mScrollPercent)) {
             dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_IDLE);
+        } else {
+            settleDraggedDrawer(0);
+        }
+    }
+
+    /**
+     * Measures and lays out the drawer just inflated from its ViewStub right away, in the same
+     * way as {@link #onMeasure(int, int)} and {@link #onLayout(boolean, int, int, int, int)} do,
+     * rather than waiting for the layout pass requested by adding it, which comes in the next
+     * frame at the earliest, so that the drawer can start scrolling in the frame it is
+     * requested to. This view and the other children are left as they are, and the pass
+     * still comes afterwards, to resize this view in case the drawer affects its size.
+     *
+     * @return true if the drawer has been laid out
+     */
+    private boolean layoutInflatedDrawerNow(View drawer) {
+        if (mInLayout || !ViewCompat.isLaidOut(this) || !isChildInLayout(drawer)) {
+            return false;
+        }
+
+        mInLayout = true;
+        // The parent specs of the children as onMeasure() resolves them against the size
+        // this view has been given
+        final int widthSize = Math.max(
+                MeasureSpec.getSize(mLastWidthMeasureSpec), getMeasuredWidth());
+        final int heightSize = MeasureSpec.getMode(mLastHeightMeasureSpec) == MeasureSpec.UNSPECIFIED
+                ? Math.max(MeasureSpec.getSize(mLastHeightMeasureSpec), getMeasuredHeight())
+                : MeasureSpec.getSize(mLastHeightMeasureSpec);
+        measureChild(drawer,
+                MeasureSpec.makeMeasureSpec(widthSize, MeasureSpec.getMode(mLastWidthMeasureSpec)),
+                MeasureSpec.makeMeasureSpec(heightSize, MeasureSpec.getMode(mLastHeightMeasureSpec)));
+        layoutChild(drawer,
+                getPaddingLeft(), getPaddingTop(),
+                getWidth() - getPaddingRight(), getHeight() - getPaddingBottom(),
+                ViewCompat.getLayoutDirection(this));
+        mInLayout = false;
+        return drawer.getWidth() > 0;
+    }
+
+    /**
+     * @return the time in milliseconds from the latest call to {@link #openDrawer(View, boolean)}
+     *         with animation to the first frame in which the drawer moved, or -1 if no such
+     *         opening has moved the drawer yet
+     */
+    public long getOpenLatency() {
+        return mOpenLatency;
+    }
+
+    private void openOrCloseDrawerImmediately(View drawer, int x) {
+        if (mDrawerSettler != null && mDrawerSettler.isRunning()) {
+            mDrawerSettler.cancel(true);
+        } else if (getDrawerX(drawer) != x) {
+            mShownDrawer = drawer;
+            dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_AUTO_SCROLL);
+        } else {
+            return;
         }
+        scrollDrawerTo(mShownDrawer, x);
+        dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_IDLE);
     }
 
     /**
-     * Like {@link #scrollDrawerTo(View, int)}, but scroll smoothly instead of immediately.
+     * Like {@link #scrollDrawerTo(View, float)}, but scroll smoothly instead of immediately.
      *
      * @param drawer the drawer to scroll
      * @param x      the position on the X axis for the drawer to reach
      * @return <code>true</code> if the scroll is actually started
      */
     private boolean smoothScrollDrawerTo(View drawer, int x) {
-        final int left = drawer.getLeft();
+        return smoothScrollDrawerTo(drawer, x, 0);
+    }
+
+    /**
+     * @param openRequestTime the time at which the drawer was requested to open, to measure
+     *                        the latency of the opening from, or 0 if it is not measured
+     */
+    private boolean smoothScrollDrawerTo(View drawer, int x, long openRequestTime) {
+        final float left = getDrawerX(drawer);
         if (left == x) {
             return false;
         }
 
         mShownDrawer = drawer;
 
-        if (mDrawerAnimator == null) {
-            mDrawerAnimator = new DrawerAnimator();
-
-        } else if (mDrawerAnimator.isRunning()) {
-            mDrawerAnimator.cancel(false);
+        final DrawerSettler settler = obtainDrawerSettler();
+        if (settler.isRunning() && mSettleVelocity == 0) {
+            settler.openRequestTime = openRequestTime;
+            settler.retarget(x);
+        } else {
+            settler.cancel(false);
+            settler.start(left, x, mSettleVelocity, openRequestTime);
         }
-        mDrawerAnimator.setIntValues(left, x);
-        mDrawerAnimator.start();
         return true;
     }
 
@@ -2357,8 +3980,19 @@ public class SlidingDrawerLayout extends ViewGroup {
      * @param drawer the drawer to scroll
      * @param x      the position on the X axis for the drawer to scroll to
      */
-    /*synthetic*/ void scrollDrawerTo(View drawer, int x) {
-        scrollDrawerBy(drawer, x - drawer.getLeft());
+    /*synthetic*/ void scrollDrawerTo(View drawer, float x) {
+        scrollDrawerBy(drawer, x - getDrawerX(drawer));
+    }
+
+    /**
+     * @return the horizontal position of the given drawer relative to current view, with its
+     *         translation counted in if the transform scrolling is enabled
+     */
+    private float getDrawerX(View drawer) {
+        if (mTransformScrollingEnabled) {
+            return drawer.getLeft() + drawer.getTranslationX();
+        }
+        return drawer.getLeft();
     }
 
     /**
@@ -2371,13 +4005,22 @@ public class SlidingDrawerLayout extends ViewGroup {
      * {@value #SCROLL_RATIO_CONTENT_TO_DRAWER} times the drawer speed.
      *
      * @param drawer the drawer to scroll
-     * @param dx     the amount of pixels for the drawer to scroll by horizontally
+     * @param dx     the amount of pixels for the drawer to scroll by horizontally, which is
+     *               rounded to whole pixels unless the transform scrolling is enabled
      */
-    private void scrollDrawerBy(View drawer, int dx) {
+    private void scrollDrawerBy(View drawer, float dx) {
         if (drawer == null) {
             return;
         }
+        if (mTransformScrollingEnabled) {
+            translateDrawerBy(drawer, dx);
+        } else {
+            offsetDrawerBy(drawer, roundFloat(dx));
+        }
+        updateContentVisibility();
+    }
 
+    private void offsetDrawerBy(View drawer, int dx) {
         dx = clampDx(drawer, dx);
         if (dx == 0) {
             return;
@@ -2399,32 +4042,593 @@ public class SlidingDrawerLayout extends ViewGroup {
 
     private int clampDx(View child, int dx) {
         LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        return DrawerStateEngine.clampDx(child.getLeft(), dx, lp.startLeft, lp.finalLeft);
+    }
 
-        int left = child.getLeft();
-        if (mShownDrawer == mLeftDrawer) {
-            left = Math.max(lp.startLeft, Math.min(left + dx, lp.finalLeft));
-        } else {
-            left = Math.max(lp.finalLeft, Math.min(left + dx, lp.startLeft));
+    /**
+     * Scrolls the given drawer by its translation, with the content view translated to
+     * the position matching the resulting scroll percentage, so that neither of them will
+     * be moved by a rounding error.
+     */
+    private void translateDrawerBy(View drawer, float dx) {
+        LayoutParams lp = (LayoutParams) drawer.getLayoutParams();
+        final float x = drawer.getLeft() + drawer.getTranslationX();
+        dx = DrawerStateEngine.clampDx(x, dx, lp.startLeft, lp.finalLeft);
+        if (dx == 0) {
+            return;
         }
 
-        return left - child.getLeft();
+        final float percent = (x + dx - lp.startLeft) / (float) (lp.finalLeft - lp.startLeft);
+        LayoutParams clp = (LayoutParams) mContentView.getLayoutParams();
+
+        drawer.setTranslationX(x + dx - drawer.getLeft());
+        mContentView.setTranslationX(
+                clp.startLeft + (clp.finalLeft - clp.startLeft) * percent - mContentView.getLeft());
+        dispatchDrawerScrollPercentChangeIfNeeded(percent);
+        invalidate();
     }
 
-    // --------------- LayoutParams ------------------------
+    // --------------- Layer policy ------------------------
 
-    @Override
-    protected boolean checkLayoutParams(ViewGroup.LayoutParams lp) {
-        return lp instanceof LayoutParams;
-    }
+    /**
+     * The layer policy used by default, which puts the shown drawer on a hardware layer while
+     * it is scrolling, unless it contains any view that draws outside of the view hierarchy or
+     * redraws itself on its own, i.e., a {@link SurfaceView}, {@link TextureView} or
+     * {@link WebView}, which would make a layer useless or even wrong. The content view is
+     * left with its own layer type, as a layer as large as it would cost more memory than
+     * the drawing it saves.
+     */
+    public static final LayerPolicy DEFAULT_LAYER_POLICY = new LayerPolicy() {
+        @Override
+        public int getLayerType(
+                @NonNull SlidingDrawerLayout parent, @NonNull View child, @ScrollState int state) {
+            return parent.getDefaultLayerType(child);
+        }
+    };
 
-    @Override
-    protected LayoutParams generateDefaultLayoutParams() {
-        return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+    /*synthetic*/ int getDefaultLayerType(View child) {
+        if (child == mContentView) {
+            return child.getLayerType();
+        }
+        // Scan the hierarchy of the drawer at most once until it is measured again, which it is
+        // after any view is added to or removed from the hierarchy.
+        LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        if (!lp.layerUnfriendlinessResolved) {
+            lp.layerUnfriendly = containsLayerUnfriendlyView(child);
+            lp.layerUnfriendlinessResolved = true;
+        }
+        return lp.layerUnfriendly ? LAYER_TYPE_NONE : LAYER_TYPE_HARDWARE;
     }
 
-    @Override
-    public LayoutParams generateLayoutParams(AttributeSet attrs) {
-        return new LayoutParams(getContext(), attrs);
+    private static boolean containsLayerUnfriendlyView(View view) {
+        if (view instanceof SurfaceView || view instanceof WebView
+                || Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH
+                        && view instanceof TextureView) {
+            return true;
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0, childCount = group.getChildCount(); i < childCount; i++) {
+                if (containsLayerUnfriendlyView(group.getChildAt(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the policy deciding the layer types of the shown drawer and the content view
+     *         while a drawer is scrolling
+     * @see #setLayerPolicy(LayerPolicy)
+     */
+    @NonNull
+    public LayerPolicy getLayerPolicy() {
+        return mLayerPolicy;
+    }
+
+    /**
+     * Sets the policy to decide the layer types of the shown drawer and the content view
+     * for each state a drawer scrolls in, which are restored to their own once the drawer
+     * becomes idle. Passing in <code>null</code> restores the {@link #DEFAULT_LAYER_POLICY}.
+     * <p>
+     * Whichever the policy is, a hardware layer is dropped for the rest of a scroll once its
+     * child turns out to be invalidated every frame, as the layer would then be rebuilt every
+     * frame rather than reused.
+     *
+     * @see #getLayerBuildCount()
+     * @see #getLayerReuseCount()
+     */
+    public void setLayerPolicy(@Nullable LayerPolicy policy) {
+        mLayerPolicy = policy == null ? DEFAULT_LAYER_POLICY : policy;
+    }
+
+    /**
+     * @return the number of times the hardware layer of the shown drawer or the content view
+     *         was built or rebuilt while a drawer was scrolling
+     * @see #resetLayerStats()
+     */
+    public int getLayerBuildCount() {
+        return mLayerBuildCount;
+    }
+
+    /**
+     * @return the number of times the hardware layer of the shown drawer or the content view
+     *         was drawn as it was, without being rebuilt, while a drawer was scrolling
+     * @see #resetLayerStats()
+     */
+    public int getLayerReuseCount() {
+        return mLayerReuseCount;
+    }
+
+    /** Resets the numbers of the builds and reuses of the layers to 0. */
+    public void resetLayerStats() {
+        mLayerBuildCount = 0;
+        mLayerReuseCount = 0;
+    }
+
+    /**
+     * @return whether the current or the last scroll of a drawer started with the hardware layer
+     *         of the drawer already built during the warm-up following the touch that lands on
+     *         the edge of the drawer, rather than in the first frame of the scroll
+     */
+    public boolean isLastScrollStartedWithWarmLayer() {
+        return mLastScrollStartedWithWarmLayer;
+    }
+
+    private void applyLayerPolicy(View shownDrawer, int state) {
+        if (mShownDrawerLayerRebuildStreak < LAYER_REBUILD_STREAK_LIMIT) {
+            applyLayerType(shownDrawer, mLayerPolicy.getLayerType(this, shownDrawer, state));
+        }
+        if (mContentLayerRebuildStreak < LAYER_REBUILD_STREAK_LIMIT) {
+            applyLayerType(mContentView, mLayerPolicy.getLayerType(this, mContentView, state));
+        }
+    }
+
+    private void applyLayerType(View child, int layerType) {
+        if (child.getLayerType() != layerType) {
+            child.setLayerType(layerType, null);
+            if (layerType == LAYER_TYPE_HARDWARE) {
+                buildChildLayer(child);
+            }
+        }
+    }
+
+    /**
+     * Builds the hardware layer of the given child right away if it can, or lets it be built
+     * the next time the child is drawn.
+     *
+     * @return true if the layer has been built right away
+     */
+    /*synthetic*/ boolean buildChildLayer(View child) {
+        final boolean built = Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1
+                && ViewCompat.isAttachedToWindow(child);
+        if (built) {
+            child.buildLayer();
+            mLayerBuildCount++;
+        }
+        return built;
+    }
+
+    /**
+     * Counts whether the hardware layer of the given child is rebuilt or reused as it is about
+     * to be drawn while a drawer is scrolling, and drops the layer if the child turns out to be
+     * invalidated every frame.
+     * <p>
+     * The child is dirty only if itself or any of its descendants has been invalidated since
+     * it was last drawn, in which case its display list, and so its layer, are rebuilt.
+     * A change of its render properties, e.g., its position, leaves it clean.
+     */
+    private void trackChildLayer(View child) {
+        if (mStateEngine.getScrollState() == SCROLL_STATE_IDLE
+                || child.getLayerType() != LAYER_TYPE_HARDWARE) {
+            return;
+        }
+
+        final boolean content = child == mContentView;
+        final int rebuildStreak;
+        if (child.isDirty()) {
+            mLayerBuildCount++;
+            rebuildStreak = content ? ++mContentLayerRebuildStreak : ++mShownDrawerLayerRebuildStreak;
+        } else {
+            mLayerReuseCount++;
+            rebuildStreak = 0;
+            if (content) {
+                mContentLayerRebuildStreak = 0;
+            } else {
+                mShownDrawerLayerRebuildStreak = 0;
+            }
+        }
+
+        if (rebuildStreak >= LAYER_REBUILD_STREAK_LIMIT) {
+            child.setLayerType(content ? mContentLayerType : mShownDrawerLayerType, null);
+        }
+    }
+
+    /**
+     * Interface definition for a policy that decides the layer types of the shown drawer and
+     * the content view while a drawer is scrolling.
+     *
+     * @see #setLayerPolicy(LayerPolicy)
+     */
+    public interface LayerPolicy {
+        /**
+         * Decides the layer type of a child while a drawer scrolls in the given state.
+         *
+         * @param parent the current layout
+         * @param child  the drawer currently showing or the content view
+         * @param state  the scroll state of the drawer, either {@link #SCROLL_STATE_TOUCH_SCROLL}
+         *               or {@link #SCROLL_STATE_AUTO_SCROLL}
+         * @return one of {@link #LAYER_TYPE_NONE}, {@link #LAYER_TYPE_SOFTWARE} or
+         *         {@link #LAYER_TYPE_HARDWARE}
+         */
+        int getLayerType(
+                @NonNull SlidingDrawerLayout parent, @NonNull View child, @ScrollState int state);
+    }
+
+    // --------------- Predictive back ------------------------
+
+    /**
+     * @see #isPredictiveBackEnabled()
+     * @see #setPredictiveBackEnabled(boolean)
+     */
+    private boolean mPredictiveBackEnabled;
+
+    /**
+     * The {@code OnBackInvokedCallback} registered for the back navigation while a drawer
+     * is open, held as an Object for this class not to refer to the platform type directly
+     */
+    private Object mOnBackInvokedCallback;
+
+    /**
+     * @return whether the drawer currently open is closed by the back navigation
+     * @see #setPredictiveBackEnabled(boolean)
+     */
+    public boolean isPredictiveBackEnabled() {
+        return mPredictiveBackEnabled;
+    }
+
+    /**
+     * Sets whether to close the drawer currently open on the back navigation, on platforms
+     * {@link Build.VERSION_CODES#TIRAMISU} and higher, for the apps that have opted in to
+     * the {@link OnBackInvokedCallback} based back handling.
+     * <p>
+     * On platforms {@link Build.VERSION_CODES#UPSIDE_DOWN_CAKE} and higher, the progress of
+     * the back gesture directly scrolls the open drawer towards its closed position as the user's
+     * finger moves, and the drawer is then settled from wherever the gesture leaves it, i.e.,
+     * closed if the gesture is committed, or reopened if it is cancelled, without restarting
+     * an animation from the opened position.
+     * <p>
+     * This is disabled by default.
+     */
+    public void setPredictiveBackEnabled(boolean enabled) {
+        if (mPredictiveBackEnabled != enabled) {
+            mPredictiveBackEnabled = enabled;
+            if (enabled) {
+                if ((mFlags & FLAG_DRAWER_HAS_BEEN_OPENED) != 0) {
+                    registerOnBackInvokedCallback();
+                }
+            } else {
+                unregisterOnBackInvokedCallback();
+            }
+        }
+    }
+
+    private void registerOnBackInvokedCallback() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && mPredictiveBackEnabled && mOnBackInvokedCallback == null) {
+            mOnBackInvokedCallback = Api33Impl.registerOnBackInvokedCallback(this);
+        }
+    }
+
+    private void unregisterOnBackInvokedCallback() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && mOnBackInvokedCallback != null) {
+            Api33Impl.unregisterOnBackInvokedCallback(this, mOnBackInvokedCallback);
+            mOnBackInvokedCallback = null;
+        }
+    }
+
+    /*synthetic*/ void closeDrawerOnBackInvoked() {
+        if (mShownDrawer != null) {
+            closeDrawer(true);
+            // Nothing is left to animate if the back gesture has already scrolled the drawer
+            // out of view.
+            endExternalDrag();
+        }
+    }
+
+    /**
+     * Holds the calls to the back navigation APIs added in {@link Build.VERSION_CODES#TIRAMISU},
+     * not to have them resolved on the lower platforms along with this view.
+     */
+    @RequiresApi(Build.VERSION_CODES.TIRAMISU)
+    private static final class Api33Impl {
+
+        private Api33Impl() {
+        }
+
+        /**
+         * @return the callback registered for the given view, or null if there is no dispatcher
+         *         to register it with
+         */
+        @Nullable
+        static Object registerOnBackInvokedCallback(@NonNull SlidingDrawerLayout parent) {
+            final OnBackInvokedDispatcher dispatcher = parent.findOnBackInvokedDispatcher();
+            if (dispatcher == null) {
+                return null;
+            }
+
+            final OnBackInvokedCallback callback =
+                    Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE ?
+                            Api34Impl.newBackAnimationCallback(parent)
+                            : parent::closeDrawerOnBackInvoked;
+            dispatcher.registerOnBackInvokedCallback(
+                    OnBackInvokedDispatcher.PRIORITY_DEFAULT, callback);
+            return callback;
+        }
+
+        static void unregisterOnBackInvokedCallback(
+                @NonNull SlidingDrawerLayout parent, @NonNull Object callback) {
+            final OnBackInvokedDispatcher dispatcher = parent.findOnBackInvokedDispatcher();
+            if (dispatcher != null) {
+                dispatcher.unregisterOnBackInvokedCallback((OnBackInvokedCallback) callback);
+            }
+        }
+    }
+
+    /**
+     * Holds the calls to the back navigation APIs added in
+     * {@link Build.VERSION_CODES#UPSIDE_DOWN_CAKE}.
+     */
+    @RequiresApi(Build.VERSION_CODES.UPSIDE_DOWN_CAKE)
+    private static final class Api34Impl {
+
+        private Api34Impl() {
+        }
+
+        @NonNull
+        static OnBackInvokedCallback newBackAnimationCallback(
+                @NonNull SlidingDrawerLayout parent) {
+            return parent.new DrawerBackAnimationCallback();
+        }
+    }
+
+    /**
+     * Drives the open drawer with the progress of the back gesture, through an external drag
+     * lasting as long as the gesture does.
+     */
+    @RequiresApi(Build.VERSION_CODES.UPSIDE_DOWN_CAKE)
+    private final class DrawerBackAnimationCallback implements OnBackAnimationCallback {
+
+        DrawerBackAnimationCallback() {
+        }
+
+        @Override
+        public void onBackStarted(@NonNull BackEvent backEvent) {
+            beginExternalDrag(mShownDrawer);
+        }
+
+        @Override
+        public void onBackProgressed(@NonNull BackEvent backEvent) {
+            // The drag ends if the drawer is taken over by anyone else.
+            if (isExternallyDragging()) {
+                setScrollPercent(mShownDrawer, 1f - backEvent.getProgress());
+            }
+        }
+
+        @Override
+        public void onBackInvoked() {
+            closeDrawerOnBackInvoked();
+        }
+
+        @Override
+        public void onBackCancelled() {
+            if (isExternallyDragging()) {
+                openDrawer(mShownDrawer, true);
+                endExternalDrag();
+            }
+        }
+    }
+
+    // --------------- NestedScrollingParent3 ------------------------
+
+    @Override
+    public boolean onStartNestedScroll(@NonNull View child, @NonNull View target, int axes) {
+        return onStartNestedScroll(child, target, axes, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public boolean onStartNestedScroll(
+            @NonNull View child, @NonNull View target, int axes, int type) {
+        // Only the touch scrolls are shared with us, as a fling from the child is expected to
+        // settle the drawer rather than drag it.
+        if (type != ViewCompat.TYPE_TOUCH || (axes & ViewCompat.SCROLL_AXIS_HORIZONTAL) == 0
+                || mStateEngine.getScrollState() == SCROLL_STATE_TOUCH_SCROLL
+                || mExternalDragging) {
+            return false;
+        }
+        // Apply the same checks as to a touch drag, against the snapshot of the gesture that
+        // the nested scroll is started in.
+        if (mShownDrawer == null) {
+            return isGestureOnLeftDrawerEdge() || isGestureOnRightDrawerEdge();
+        }
+        return isDrawerSlidableInGesture(mShownDrawer);
+    }
+
+    @Override
+    public void onNestedScrollAccepted(@NonNull View child, @NonNull View target, int axes) {
+        onNestedScrollAccepted(child, target, axes, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void onNestedScrollAccepted(
+            @NonNull View child, @NonNull View target, int axes, int type) {
+        mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes, type);
+        mFlags |= FLAG_NESTED_SCROLL_ACCEPTED;
+        mNestedFlingVelocityX = 0;
+    }
+
+    @Override
+    public void onNestedPreScroll(
+            @NonNull View target, int dx, int dy, @NonNull int[] consumed) {
+        onNestedPreScroll(target, dx, dy, consumed, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void onNestedPreScroll(
+            @NonNull View target, int dx, int dy, @NonNull int[] consumed, int type) {
+        // The drawer being dragged takes all the horizontal scroll before the target does,
+        // until it is closed by it.
+        if ((mFlags & FLAG_NESTED_DRAGGING) != 0 && mScrollPercent > 0 && dx != 0) {
+            dragDrawerByNestedScroll(dx);
+            consumed[0] += dx;
+        }
+    }
+
+    @Override
+    public void onNestedScroll(@NonNull View target,
+                               int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+        onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+                ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void onNestedScroll(@NonNull View target,
+                               int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed,
+                               int type) {
+        if (mNestedScrollConsumed == null) {
+            mNestedScrollConsumed = new int[2];
+        }
+        onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, type,
+                mNestedScrollConsumed);
+    }
+
+    @Override
+    public void onNestedScroll(@NonNull View target,
+                               int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed,
+                               int type, @NonNull int[] consumed) {
+        if (type == ViewCompat.TYPE_TOUCH && dxUnconsumed != 0
+                && tryStartNestedDrag(dxUnconsumed)) {
+            dragDrawerByNestedScroll(dxUnconsumed);
+            consumed[0] += dxUnconsumed;
+        }
+    }
+
+    @Override
+    public boolean onNestedPreFling(@NonNull View target, float velocityX, float velocityY) {
+        if ((mFlags & FLAG_NESTED_DRAGGING) != 0) {
+            // The scroll velocity of the target is opposite to that of the pointer.
+            mNestedFlingVelocityX = -velocityX;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onNestedFling(
+            @NonNull View target, float velocityX, float velocityY, boolean consumed) {
+        return onNestedPreFling(target, velocityX, velocityY);
+    }
+
+    @Override
+    public void onStopNestedScroll(@NonNull View target) {
+        onStopNestedScroll(target, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void onStopNestedScroll(@NonNull View target, int type) {
+        mNestedScrollingParentHelper.onStopNestedScroll(target, type);
+        if (type != ViewCompat.TYPE_TOUCH) {
+            return;
+        }
+
+        final boolean dragging = (mFlags & FLAG_NESTED_DRAGGING) != 0;
+        mFlags &= ~(FLAG_NESTED_SCROLL_ACCEPTED | FLAG_NESTED_DRAGGING);
+        if (!dragging) {
+            cancelDrawerWarmUp();
+        } else if (mStateEngine.getScrollState() == SCROLL_STATE_TOUCH_SCROLL) {
+            applyPendingDrag();
+            if (!DrawerStateEngine.needsSettling(mScrollPercent)) {
+                dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_IDLE);
+            } else {
+                settleDraggedDrawer(mNestedFlingVelocityX);
+            }
+        }
+        mNestedFlingVelocityX = 0;
+    }
+
+    @Override
+    public int getNestedScrollAxes() {
+        return mNestedScrollingParentHelper.getNestedScrollAxes();
+    }
+
+    /**
+     * Starts dragging the drawer that the horizontal scroll left unconsumed by the nested
+     * scrolling child can open or close, if any.
+     *
+     * @param dx the unconsumed horizontal scroll, positive when the pointer moves leftwards
+     * @return true if a drawer is being dragged by the nested scroll
+     */
+    private boolean tryStartNestedDrag(int dx) {
+        if ((mFlags & FLAG_NESTED_DRAGGING) != 0) {
+            return true;
+        }
+
+        View drawer = null;
+        if (mShownDrawer == null) {
+            if (dx < 0 && isGestureOnLeftDrawerEdge()) {
+                if (isStubDrawer(mLeftDrawer)) {
+                    mLeftDrawer = inflateStubDrawer((ViewStub) mLeftDrawer);
+                }
+                drawer = mLeftDrawer;
+            } else if (dx > 0 && isGestureOnRightDrawerEdge()) {
+                if (isStubDrawer(mRightDrawer)) {
+                    mRightDrawer = inflateStubDrawer((ViewStub) mRightDrawer);
+                }
+                drawer = mRightDrawer;
+            }
+        } else if (mScrollPercent == 1 && isDrawerSlidableInGesture(mShownDrawer)
+                && (mShownDrawer == mLeftDrawer ? dx > 0 : dx < 0)) {
+            drawer = mShownDrawer;
+        }
+        if (drawer == null) {
+            return false;
+        }
+
+        requestParentDisallowInterceptTouchEvent();
+        mFlags |= FLAG_NESTED_DRAGGING;
+        mShownDrawer = drawer;
+        dispatchDrawerScrollStateChangeIfNeeded(SCROLL_STATE_TOUCH_SCROLL);
+
+        cancelRunningAnimatorAndPendingActions();
+        return true;
+    }
+
+    private void dragDrawerByNestedScroll(int dx) {
+        mPendingDragDx -= dx;
+        if (mDragCoalescingEnabled) {
+            schedulePendingDrag();
+        } else {
+            applyPendingDrag();
+        }
+    }
+
+    // --------------- LayoutParams ------------------------
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams lp) {
+        return lp instanceof LayoutParams;
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new LayoutParams(getContext(), attrs);
     }
 
     @Override
@@ -2455,6 +4659,14 @@ public class SlidingDrawerLayout extends ViewGroup {
          */
         /*synthetic*/ int finalLeft;
 
+        /**
+         * Whether the View to which these layout parameters belong contains any view that draws
+         * outside of the view hierarchy or redraws itself on its own, as resolved by the
+         * {@link #DEFAULT_LAYER_POLICY} since the View was last measured.
+         */
+        /*synthetic*/ boolean layerUnfriendly;
+        /*synthetic*/ boolean layerUnfriendlinessResolved;
+
         public LayoutParams(@NonNull Context c, @Nullable AttributeSet attrs) {
             super(c, attrs);
             TypedArray ta = c.obtainStyledAttributes(attrs, R.styleable.SlidingDrawerLayout_Layout);
@@ -2501,8 +4713,22 @@ public class SlidingDrawerLayout extends ViewGroup {
 
     private List<OnDrawerScrollListener> mOnDrawerScrollListeners;
 
+    /**
+     * Copy of {@link #mOnDrawerScrollListeners} to notify the listeners through, which is
+     * reused until the listeners change, so that no copy will be made per frame.
+     */
+    private OnDrawerScrollListener[] mOnDrawerScrollListenerArray;
+
     private static final OnDrawerScrollListener[] sEmptyOnDrawerScrollListenerArray = {};
 
+    private OnDrawerScrollListener[] getOnDrawerScrollListenerArray() {
+        if (mOnDrawerScrollListenerArray == null) {
+            mOnDrawerScrollListenerArray =
+                    mOnDrawerScrollListeners.toArray(sEmptyOnDrawerScrollListenerArray);
+        }
+        return mOnDrawerScrollListenerArray;
+    }
+
     public void addOnDrawerScrollListener(@NonNull OnDrawerScrollListener listener) {
         if (mOnDrawerScrollListeners == null) {
             mOnDrawerScrollListeners = new LinkedList<>();
@@ -2511,11 +4737,12 @@ public class SlidingDrawerLayout extends ViewGroup {
             return;
         }
         mOnDrawerScrollListeners.add(listener);
+        mOnDrawerScrollListenerArray = null;
     }
 
     public void removeOnDrawerScrollListener(@NonNull OnDrawerScrollListener listener) {
-        if (mOnDrawerScrollListeners != null)
-            mOnDrawerScrollListeners.remove(listener);
+        if (mOnDrawerScrollListeners != null && mOnDrawerScrollListeners.remove(listener))
+            mOnDrawerScrollListenerArray = null;
     }
 
 //    public void clearOnDrawerScrollListeners() {
@@ -2523,18 +4750,64 @@ public class SlidingDrawerLayout extends ViewGroup {
 //            mOnDrawerScrollListeners.clear();
 //    }
 
+    /**
+     * @return how much of the content view is visible, i.e., one of {@link #CONTENT_VISIBLE},
+     *         {@link #CONTENT_PARTIALLY_COVERED} or {@link #CONTENT_OCCLUDED}
+     * @see #setOnContentVisibilityChangeListener(OnContentVisibilityChangeListener)
+     */
+    @ContentVisibility
+    public int getContentVisibility() {
+        return mContentVisibility;
+    }
+
+    /**
+     * Sets the listener to be notified when the content view becomes visible, partially covered
+     * or fully covered by a drawer, so that the work of the content view, such as playing videos
+     * or animations, can be paused while no one could see it.
+     * <p>
+     * The listener is only called on the transitions between those states, rather than per
+     * frame as a drawer moves.
+     */
+    public void setOnContentVisibilityChangeListener(
+            @Nullable OnContentVisibilityChangeListener listener) {
+        mOnContentVisibilityChangeListener = listener;
+    }
+
+    /**
+     * Resolves how much of the content view is visible from the positions of it computed
+     * by the layout or the scrolling of the drawer, and notifies the listener if that changes.
+     */
+    private void updateContentVisibility() {
+        if (mContentView == null || !isChildInLayout(mContentView)) {
+            return;
+        }
+
+        LayoutParams clp = (LayoutParams) mContentView.getLayoutParams();
+        final int visibility = DrawerStateEngine.resolveContentVisibility(
+                mContentView.getLeft() + mContentView.getTranslationX(), mContentView.getWidth(),
+                clp.startLeft, getPaddingLeft(), getWidth() - getPaddingRight());
+        if (visibility == mContentVisibility) {
+            return;
+        }
+        mContentVisibility = visibility;
+
+        if (mOnContentVisibilityChangeListener != null) {
+            mOnContentVisibilityChangeListener.onContentVisibilityChange(this, visibility);
+        }
+    }
+
     private void dispatchDrawerScrollPercentChangeIfNeeded(float percent) {
         if (percent == mScrollPercent) return;
         mScrollPercent = percent;
 
         if (mOnDrawerScrollListeners != null) {
-            OnDrawerScrollListener[] listeners =
-                    mOnDrawerScrollListeners.toArray(sEmptyOnDrawerScrollListenerArray);
+            OnDrawerScrollListener[] listeners = getOnDrawerScrollListenerArray();
             // After each loop, the count of OnDrawerScrollListener associated to this view
             // might have changed as addOnDrawerScrollListener, removeOnDrawerScrollListener or
             // clearOnDrawerScrollListeners method can be called during a callback to any listener,
             // in the case of which, a subsequent loop will throw an Exception.
-            // For fear of that, here the above copied OnDrawerScrollListener set is used.
+            // For fear of that, here the above copied OnDrawerScrollListener set is used,
+            // which is replaced rather than modified when the listeners change.
             for (OnDrawerScrollListener listener : listeners) {
                 listener.onScrollPercentChange(this, mShownDrawer, mScrollPercent);
             }
@@ -2543,15 +4816,19 @@ public class SlidingDrawerLayout extends ViewGroup {
 
     @SuppressLint("ObsoleteSdkInt")
     /*synthetic*/ void dispatchDrawerScrollStateChangeIfNeeded(@ScrollState int state) {
-        final int old = mFlags & SCROLL_STATE_MASK;
-        if (state == old) return;
-        mFlags = (mFlags & ~SCROLL_STATE_MASK) | state;
+        final int old = mStateEngine.getScrollState();
+        if (!mStateEngine.setScrollState(state)) return;
+
+        if (state != SCROLL_STATE_TOUCH_SCROLL) {
+            // Whoever takes over the drawer ends the external drag.
+            mExternalDragging = false;
+        }
 
         final View shownDrawer = mShownDrawer;
 
         OnDrawerScrollListener[] listeners = null;
         if (mOnDrawerScrollListeners != null) {
-            listeners = mOnDrawerScrollListeners.toArray(sEmptyOnDrawerScrollListenerArray);
+            listeners = getOnDrawerScrollListenerArray();
 
             for (OnDrawerScrollListener listener : listeners)
                 listener.onScrollStateChange(this, shownDrawer, state);
@@ -2559,8 +4836,12 @@ public class SlidingDrawerLayout extends ViewGroup {
 
         switch (state) {
             case SCROLL_STATE_TOUCH_SCROLL:
+                requestUnbufferedTouchDispatch();
+                // fall through
             case SCROLL_STATE_AUTO_SCROLL:
                 if (old == SCROLL_STATE_IDLE) {
+                    startFrameRateBoost();
+
                     if (mScrollPercent == 0) {
                         shownDrawer.setVisibility(VISIBLE);
 
@@ -2570,17 +4851,22 @@ public class SlidingDrawerLayout extends ViewGroup {
                                         shownDrawer.getWidth() : -shownDrawer.getWidth());
                     }
 
-                    mShownDrawerLayerType = shownDrawer.getLayerType();
-                    shownDrawer.setLayerType(LAYER_TYPE_HARDWARE, null);
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1
-                            && ViewCompat.isAttachedToWindow(shownDrawer)) {
-                        shownDrawer.buildLayer();
+                    // The layer may have been built for the drawer during its warm-up.
+                    mLastScrollStartedWithWarmLayer = false;
+                    if (mDrawerWarmUp == null || !mDrawerWarmUp.finishFor(shownDrawer)) {
+                        mShownDrawerLayerType = shownDrawer.getLayerType();
                     }
+                    mContentLayerType = mContentView.getLayerType();
+                    mShownDrawerLayerRebuildStreak = mContentLayerRebuildStreak = 0;
                 }
+                applyLayerPolicy(shownDrawer, state);
                 break;
 
             case SCROLL_STATE_IDLE:
+                revokeUnbufferedTouchDispatch();
+                stopFrameRateBoost();
                 shownDrawer.setLayerType(mShownDrawerLayerType, null);
+                mContentView.setLayerType(mContentLayerType, null);
 
                 if (mScrollPercent == 1) {
                     if ((mFlags & FLAG_DRAWER_HAS_BEEN_OPENED) == 0) {
@@ -2591,6 +4877,7 @@ public class SlidingDrawerLayout extends ViewGroup {
                         }
 
                         updateChildrenImportantForAccessibility(true);
+                        registerOnBackInvokedCallback();
 
                         // Only send WINDOW_STATE_CHANGE if the host has window focus.
                         if (hasWindowFocus()) {
@@ -2624,6 +4911,7 @@ public class SlidingDrawerLayout extends ViewGroup {
                         }
 
                         updateChildrenImportantForAccessibility(false);
+                        unregisterOnBackInvokedCallback();
 
                         // Only send WINDOW_STATE_CHANGE if the host has window focus. This may
                         // change if support for multiple foreground windows (e.g. IME) improves.
@@ -2640,6 +4928,24 @@ public class SlidingDrawerLayout extends ViewGroup {
         }
     }
 
+    /**
+     * Interface definition for a callback to be invoked when how much of the content view
+     * is visible changes.
+     *
+     * @see #setOnContentVisibilityChangeListener(OnContentVisibilityChangeListener)
+     */
+    public interface OnContentVisibilityChangeListener {
+        /**
+         * Callback to be called when the content view becomes visible, partially covered or
+         * fully covered by the drawer currently showing.
+         *
+         * @param parent     the current layout
+         * @param visibility how much of the content view is visible now
+         */
+        void onContentVisibilityChange(
+                @NonNull SlidingDrawerLayout parent, @ContentVisibility int visibility);
+    }
+
     /**
      * Classes that wish to monitor the events of the drawers' scrolling should implement
      * this interface.
@@ -2673,7 +4979,7 @@ public class SlidingDrawerLayout extends ViewGroup {
                 @FloatRange(from = 0.0, to = 1.0) float percent);
 
         /**
-         * Callback to be called when the scroll state ({@code mFlags & SCROLL_STATE_MASK})
+         * Callback to be called when the scroll state ({@link SlidingDrawerLayout#getScrollState()})
          * of the dragged drawer changes.
          *
          * @param parent the current layout
@@ -2746,17 +5052,10 @@ public class SlidingDrawerLayout extends ViewGroup {
         final SavedState ss = new SavedState(superState);
 
         final boolean opened = (mFlags & FLAG_DRAWER_HAS_BEEN_OPENED) != 0;
-        final boolean hasPostedRunnableInQueue =
-                mPostedDrawerRunnable != null && mPostedDrawerRunnable.isInMsgQueue;
         // Is the shown drawer fully opened (that is, not closing)?
-        final boolean isOpenedAndNotClosing =
-                opened && !(hasPostedRunnableInQueue && !mPostedDrawerRunnable.open)
-                        && (mFlags & FLAG_ANIMATING_DRAWER_CLOSURE) == 0;
+        final boolean isOpenedAndNotClosing = opened && !mStateEngine.isAnimatingClosure();
         // Is the shown drawer opening?
-        final boolean isClosedAndOpening =
-                !opened
-                        && (hasPostedRunnableInQueue && mPostedDrawerRunnable.open
-                                || (mFlags & FLAG_ANIMATING_DRAWER_OPENING) != 0);
+        final boolean isClosedAndOpening = !opened && mStateEngine.isAnimatingOpening();
         if (isOpenedAndNotClosing || isClosedAndOpening) {
             // If one of the conditions above holds, save the drawer's gravity so that
             // we open that drawer during state restore.
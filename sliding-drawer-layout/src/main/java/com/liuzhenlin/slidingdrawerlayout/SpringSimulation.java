@@ -0,0 +1,150 @@
+/*
+ * Created on 2026/10/18.
+ * Copyright © 2026 刘振林. All rights reserved.
+ */
+
+package com.liuzhenlin.slidingdrawerlayout;
+
+/**
+ * Simulates a damped spring of unit mass pulling a value towards its rest position, starting
+ * with a given displacement from the rest position and a given velocity.
+ * <p>
+ * The motion is computed analytically from the time elapsed since the simulation started,
+ * rather than integrated frame by frame, so that it does not depend on the frame rate and no
+ * error accumulates over frames. A settle driven by the spring lasts as long as it takes
+ * the value to come to rest, which scales with the initial displacement and velocity rather
+ * than being fixed.
+ *
+ * @author 刘振林
+ */
+final class SpringSimulation {
+
+    /** Default stiffness of the spring, the same as that of a medium stiffness spring */
+    static final float DEFAULT_STIFFNESS = 1500f;
+
+    /** Default damping ratio of the spring, which critically damps it with no oscillation */
+    static final float DEFAULT_DAMPING_RATIO = 1f;
+
+    /** Displacement within which the value can be considered at rest */
+    static final float DISPLACEMENT_THRESHOLD = 0.5f; // px
+
+    /** Speed within which the value can be considered at rest, about half a pixel per frame */
+    static final float VELOCITY_THRESHOLD = 30f; // px/s
+
+    private float mStiffness = DEFAULT_STIFFNESS;
+    private float mDampingRatio = DEFAULT_DAMPING_RATIO;
+
+    // Coefficients of the motion, resolved on start
+    private float mNaturalFrequency;
+    private float mStartDisplacement;
+    private float mStartVelocity;
+
+    private float mDisplacement;
+    private float mVelocity;
+
+    float getStiffness() {
+        return mStiffness;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the provided argument <code>stiffness</code> <= 0
+     */
+    void setStiffness(float stiffness) {
+        if (!(stiffness > 0)) {
+            throw new IllegalArgumentException("The stiffness of a spring must > 0, " +
+                    "but your is " + stiffness);
+        }
+        mStiffness = stiffness;
+    }
+
+    float getDampingRatio() {
+        return mDampingRatio;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the provided argument <code>dampingRatio</code> <= 0
+     */
+    void setDampingRatio(float dampingRatio) {
+        if (!(dampingRatio > 0)) {
+            throw new IllegalArgumentException("The damping ratio of a spring must > 0, " +
+                    "but your is " + dampingRatio);
+        }
+        mDampingRatio = dampingRatio;
+    }
+
+    /**
+     * Starts the simulation.
+     *
+     * @param displacement the initial displacement of the value from its rest position
+     * @param velocity     the initial velocity of the value, in units per second
+     */
+    void start(float displacement, float velocity) {
+        mNaturalFrequency = (float) Math.sqrt(mStiffness);
+        mStartDisplacement = displacement;
+        mStartVelocity = velocity;
+        mDisplacement = displacement;
+        mVelocity = velocity;
+    }
+
+    /**
+     * Computes the displacement and velocity of the value at the given time.
+     *
+     * @param elapsed the time in milliseconds elapsed since the simulation started
+     * @return true if the value has come to rest
+     */
+    boolean update(long elapsed) {
+        final double t = elapsed / 1000d;
+        final double w0 = mNaturalFrequency;
+        final double zeta = mDampingRatio;
+        final double x0 = mStartDisplacement;
+        final double v0 = mStartVelocity;
+
+        final double x, v;
+        if (zeta > 1) {
+            // Overdamped
+            final double root = w0 * Math.sqrt(zeta * zeta - 1);
+            final double r1 = -zeta * w0 + root;
+            final double r2 = -zeta * w0 - root;
+            final double c2 = (v0 - r1 * x0) / (r2 - r1);
+            final double c1 = x0 - c2;
+            final double e1 = Math.exp(r1 * t);
+            final double e2 = Math.exp(r2 * t);
+            x = c1 * e1 + c2 * e2;
+            v = c1 * r1 * e1 + c2 * r2 * e2;
+        } else if (zeta == 1) {
+            // Critically damped
+            final double c = v0 + w0 * x0;
+            final double e = Math.exp(-w0 * t);
+            x = (x0 + c * t) * e;
+            v = (c - w0 * (x0 + c * t)) * e;
+        } else {
+            // Underdamped
+            final double wd = w0 * Math.sqrt(1 - zeta * zeta);
+            final double c = (v0 + zeta * w0 * x0) / wd;
+            final double e = Math.exp(-zeta * w0 * t);
+            final double cos = Math.cos(wd * t);
+            final double sin = Math.sin(wd * t);
+            x = e * (x0 * cos + c * sin);
+            v = -zeta * w0 * x + e * (-x0 * wd * sin + c * wd * cos);
+        }
+        mDisplacement = (float) x;
+        mVelocity = (float) v;
+
+        if (Math.abs(x) < DISPLACEMENT_THRESHOLD && Math.abs(v) < VELOCITY_THRESHOLD) {
+            mDisplacement = 0;
+            mVelocity = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /** @return the displacement of the value from its rest position as of the latest update */
+    float getDisplacement() {
+        return mDisplacement;
+    }
+
+    /** @return the velocity of the value in units per second as of the latest update */
+    float getVelocity() {
+        return mVelocity;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Created on 2026/10/18.
+ * Copyright © 2026 刘振林. All rights reserved.
+ */
+
+package com.liuzhenlin.slidingdrawerlayout;
+
+/**
+ * Predicts the position of a pointer along the x axis at a time ahead of its latest sample,
+ * using an alpha-beta-gamma filter that tracks the position, velocity and acceleration of
+ * the pointer.
+ * <p>
+ * Each new sample corrects the state of the filter by the residual between the sample and
+ * the position the filter predicted for the time it was taken, and the mean of these residuals
+ * is kept as a measure of how well the pointer is being predicted.
+ * <p>
+ * All the state is held in primitive fields, so that nothing will be allocated while samples
+ * are being added or predictions are being made.
+ *
+ * @author 刘振林
+ */
+final class TouchPredictor {
+
+    /** Gain correcting the position of the filter by the residual of each sample */
+    static final float ALPHA = 0.5f;
+    /** Gain correcting the velocity of the filter by the residual of each sample */
+    static final float BETA = 0.4f;
+    /** Gain correcting the acceleration of the filter by the residual of each sample */
+    static final float GAMMA = 0.1f;
+
+    /**
+     * If the time between two consecutive samples exceeds this many milliseconds, the pointer is
+     * assumed to have stopped in between, and the velocity and acceleration are reset.
+     */
+    static final long ASSUME_POINTER_STOPPED_TIME = 40; // ms
+
+    /** Position of the pointer as estimated at the time of the latest sample */
+    private float mX;
+    /** Velocity of the pointer in pixels per millisecond */
+    private float mVelocity;
+    /** Acceleration of the pointer in pixels per millisecond squared */
+    private float mAcceleration;
+
+    private long mLatestTime;
+    private int mSampleCount;
+
+    private float mErrorSum;
+    private int mErrorCount;
+
+    /** Discards all the samples of the pointer along with its prediction error. */
+    void reset() {
+        restart();
+        mErrorSum = 0;
+        mErrorCount = 0;
+    }
+
+    /**
+     * Restarts tracking the pointer from scratch, as the one being tracked changes, without
+     * discarding the prediction error accumulated so far.
+     */
+    void restart() {
+        mX = 0;
+        mVelocity = 0;
+        mAcceleration = 0;
+        mLatestTime = 0;
+        mSampleCount = 0;
+    }
+
+    /**
+     * Corrects the state of the filter with a new sample of the pointer.
+     *
+     * @param x         the x coordinate of the pointer
+     * @param eventTime the time in milliseconds at which the sample was taken
+     */
+    void addSample(float x, long eventTime) {
+        if (mSampleCount == 0) {
+            mX = x;
+            mLatestTime = eventTime;
+            mSampleCount = 1;
+            return;
+        }
+
+        final long dt = eventTime - mLatestTime;
+        if (dt <= 0) {
+            // Samples at the same time carry no motion information.
+            mX = x;
+            return;
+        }
+        if (dt > ASSUME_POINTER_STOPPED_TIME) {
+            mX = x;
+            mVelocity = 0;
+            mAcceleration = 0;
+            mLatestTime = eventTime;
+            mSampleCount = 1;
+            return;
+        }
+
+        if (mSampleCount == 1) {
+            // Nothing to go on but the displacement between the first two samples
+            mVelocity = (x - mX) / dt;
+            mX = x;
+        } else {
+            final float predictedX = mX + mVelocity * dt + 0.5f * mAcceleration * dt * dt;
+            final float residual = x - predictedX;
+
+            mX = predictedX + ALPHA * residual;
+            mVelocity += mAcceleration * dt + BETA * residual / dt;
+            mAcceleration += 2f * GAMMA * residual / (dt * dt);
+
+            mErrorSum += Math.abs(residual);
+            mErrorCount++;
+        }
+        mLatestTime = eventTime;
+        mSampleCount++;
+    }
+
+    /**
+     * Predicts the x coordinate of the pointer at the given time.
+     *
+     * @param time the time in milliseconds, in the time base of the samples
+     * @return the predicted position, or that of the latest sample if not enough samples
+     *         have been added to make a prediction
+     */
+    float predictX(long time) {
+        if (mSampleCount < 3) {
+            return mX;
+        }
+        final long dt = time - mLatestTime;
+        if (dt <= 0) {
+            return mX;
+        }
+        return mX + mVelocity * dt + 0.5f * mAcceleration * dt * dt;
+    }
+
+    /**
+     * @return the mean absolute difference in pixels between the samples added and the positions
+     *         the filter predicted for them, or 0 if no prediction has been verified yet
+     */
+    float getMeanError() {
+        return mErrorCount == 0 ? 0 : mErrorSum / mErrorCount;
+    }
+}
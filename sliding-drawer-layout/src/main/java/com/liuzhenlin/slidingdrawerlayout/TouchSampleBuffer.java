@@ -0,0 +1,123 @@
+/*
+ * Created on 2026/10/18.
+ * Copyright © 2026 刘振林. All rights reserved.
+ */
+
+package com.liuzhenlin.slidingdrawerlayout;
+
+/**
+ * A fixed-capacity ring buffer storing the positions and event times of the touch samples of
+ * the pointer being tracked, including the historical ones batched into each move event.
+ * <p>
+ * All the samples are kept in primitive arrays that are allocated once on construction, so that
+ * no object will be created while they are being recorded. When the buffer is full, the oldest
+ * sample is overwritten by the newly added one.
+ *
+ * @author 刘振林
+ */
+final class TouchSampleBuffer {
+
+    /** Default number of samples a buffer can hold */
+    static final int DEFAULT_CAPACITY = 32;
+
+    private final float[] mX;
+    private final float[] mY;
+    private final long[] mEventTimes;
+
+    /** Index of the oldest sample in the arrays */
+    private int mHead;
+
+    /** Number of the samples currently stored */
+    private int mSize;
+
+    TouchSampleBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("The capacity of a TouchSampleBuffer must >= 2, " +
+                    "but your is " + capacity);
+        }
+        mX = new float[capacity];
+        mY = new float[capacity];
+        mEventTimes = new long[capacity];
+    }
+
+    /** @return the maximum number of samples this buffer can hold */
+    int capacity() {
+        return mX.length;
+    }
+
+    /** @return the number of samples currently stored */
+    int size() {
+        return mSize;
+    }
+
+    /** Discards all the samples stored. */
+    void clear() {
+        mHead = 0;
+        mSize = 0;
+    }
+
+    /**
+     * Appends a sample to the end of this buffer, overwriting the oldest one if no free space
+     * is left.
+     *
+     * @param x         the x coordinate of the pointer
+     * @param y         the y coordinate of the pointer
+     * @param eventTime the time in milliseconds at which the sample was taken, in the
+     *                  {@link android.os.SystemClock#uptimeMillis()} time base
+     */
+    void add(float x, float y, long eventTime) {
+        final int capacity = mX.length;
+        final int index;
+        if (mSize < capacity) {
+            index = (mHead + mSize) % capacity;
+            mSize++;
+        } else {
+            index = mHead;
+            mHead = (mHead + 1) % capacity;
+        }
+        mX[index] = x;
+        mY[index] = y;
+        mEventTimes[index] = eventTime;
+    }
+
+    /**
+     * Converts the position of a sample, counting from the oldest one, to its index
+     * in the arrays.
+     */
+    private int indexOf(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("position: " + position + ", size: " + mSize);
+        }
+        return (mHead + position) % mX.length;
+    }
+
+    /** @return the x coordinate of the sample at the given position, 0 being the oldest one */
+    float getX(int position) {
+        return mX[indexOf(position)];
+    }
+
+    /** @return the y coordinate of the sample at the given position, 0 being the oldest one */
+    float getY(int position) {
+        return mY[indexOf(position)];
+    }
+
+    /** @return the event time of the sample at the given position, 0 being the oldest one */
+    long getEventTime(int position) {
+        return mEventTimes[indexOf(position)];
+    }
+
+    /** @return the x coordinate of the latest sample */
+    float getLatestX() {
+        return getX(mSize - 1);
+    }
+
+    /** @return the y coordinate of the latest sample */
+    float getLatestY() {
+        return getY(mSize - 1);
+    }
+
+    /** @return the event time of the latest sample */
+    long getLatestEventTime() {
+        return getEventTime(mSize - 1);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Created on 2026/10/18.
+ * Copyright © 2026 刘振林. All rights reserved.
+ */
+
+package com.liuzhenlin.slidingdrawerlayout;
+
+/**
+ * Estimates the velocity of a pointer along the x axis from the samples recorded in
+ * a {@link TouchSampleBuffer}, by fitting a quadratic polynomial to the positions of at most
+ * the latest {@link #getWindowSize()} samples within {@link #HORIZON} milliseconds using
+ * the least squares method and then taking its derivative at the time of the latest sample.
+ * <p>
+ * An instance is meant to be reused across gestures: it holds no state other than its
+ * configuration and allocates nothing when computing velocities, as all the sums needed for
+ * the normal equations are accumulated in primitive local variables.
+ *
+ * @author 刘振林
+ */
+final class VelocityEstimator {
+
+    /** Default maximum number of samples to fit */
+    static final int DEFAULT_WINDOW_SIZE = 20;
+
+    /**
+     * Samples older than this many milliseconds relative to the latest one are not taken into
+     * account for the estimation.
+     */
+    static final long HORIZON = 100; // ms
+
+    /**
+     * If the time between two consecutive samples exceeds this many milliseconds, the pointer is
+     * assumed to have stopped in between, and the samples before that are no longer considered.
+     */
+    static final long ASSUME_POINTER_STOPPED_TIME = 40; // ms
+
+    private final int mWindowSize;
+
+    VelocityEstimator() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    VelocityEstimator(int windowSize) {
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("The window size of a VelocityEstimator must >= 2, " +
+                    "but your is " + windowSize);
+        }
+        mWindowSize = windowSize;
+    }
+
+    /** @return the maximum number of the latest samples to be fitted */
+    int getWindowSize() {
+        return mWindowSize;
+    }
+
+    /**
+     * Computes the velocity of the pointer along the x axis at the time of the latest sample
+     * in the given buffer.
+     *
+     * @param samples the samples of the pointer
+     * @param units   the time unit in milliseconds for the velocity returned. A value of 1
+     *                provides pixels per millisecond, 1000 provides pixels per second, etc.
+     * @return the estimated velocity, or 0 if there are not enough samples to compute it
+     */
+    float computeXVelocity(TouchSampleBuffer samples, int units) {
+        final int size = samples.size();
+        if (size < 2) {
+            return 0;
+        }
+
+        final int latest = size - 1;
+        final long latestTime = samples.getEventTime(latest);
+        final float latestX = samples.getX(latest);
+
+        // Sums for the normal equations of the polynomial x = b0 + b1 * t + b2 * t^2, where t is
+        // the time relative to the latest sample and x the position relative to that sample.
+        double st = 0, st2 = 0, st3 = 0, st4 = 0;
+        double sx = 0, sxt = 0, sxt2 = 0;
+        int n = 0;
+        long prevTime = latestTime;
+        for (int i = latest; i >= 0 && n < mWindowSize; i--) {
+            final long time = samples.getEventTime(i);
+            if (latestTime - time > HORIZON || prevTime - time > ASSUME_POINTER_STOPPED_TIME) {
+                break;
+            }
+            prevTime = time;
+
+            final double t = time - latestTime;
+            final double t2 = t * t;
+            final double x = samples.getX(i) - latestX;
+            st += t;
+            st2 += t2;
+            st3 += t2 * t;
+            st4 += t2 * t2;
+            sx += x;
+            sxt += x * t;
+            sxt2 += x * t2;
+            n++;
+        }
+        if (n < 2 || prevTime == latestTime) {
+            return 0;
+        }
+
+        if (n >= 3) {
+            // Solve the 3x3 system with Cramer's rule, for b1 only.
+            final double det = n * (st2 * st4 - st3 * st3)
+                    - st * (st * st4 - st3 * st2)
+                    + st2 * (st * st3 - st2 * st2);
+            if (Math.abs(det) > 1e-9) {
+                final double det1 = n * (sxt * st4 - st3 * sxt2)
+                        - sx * (st * st4 - st3 * st2)
+                        + st2 * (st * sxt2 - sxt * st2);
+                return (float) (det1 / det * units);
+            }
+        }
+
+        // Fall back to a linear fit x = b0 + b1 * t
+        final double det = n * st2 - st * st;
+        if (Math.abs(det) <= 1e-9) {
+            return 0;
+        }
+        return (float) ((n * sxt - st * sx) / det * units);
+    }
+}
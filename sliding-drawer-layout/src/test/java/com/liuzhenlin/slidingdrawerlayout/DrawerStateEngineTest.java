@@ -0,0 +1,158 @@
+package com.liuzhenlin.slidingdrawerlayout;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.liuzhenlin.slidingdrawerlayout.DrawerStateEngine.CONTENT_OCCLUDED;
+import static com.liuzhenlin.slidingdrawerlayout.DrawerStateEngine.CONTENT_PARTIALLY_COVERED;
+import static com.liuzhenlin.slidingdrawerlayout.DrawerStateEngine.CONTENT_VISIBLE;
+import static com.liuzhenlin.slidingdrawerlayout.DrawerStateEngine.SCROLL_STATE_AUTO_SCROLL;
+import static com.liuzhenlin.slidingdrawerlayout.DrawerStateEngine.SCROLL_STATE_IDLE;
+import static com.liuzhenlin.slidingdrawerlayout.DrawerStateEngine.SCROLL_STATE_TOUCH_SCROLL;
+import static com.liuzhenlin.slidingdrawerlayout.DrawerStateEngine.SETTLE_CLOSE;
+import static com.liuzhenlin.slidingdrawerlayout.DrawerStateEngine.SETTLE_NONE;
+import static com.liuzhenlin.slidingdrawerlayout.DrawerStateEngine.SETTLE_OPEN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link DrawerStateEngine}.
+ */
+public class DrawerStateEngineTest {
+
+    private static final float MINIMUM_FLING_VELOCITY = 1000f; // px/s
+
+    private final DrawerStateEngine mEngine = new DrawerStateEngine(MINIMUM_FLING_VELOCITY);
+
+    @Test
+    public void setScrollState() {
+        assertEquals(SCROLL_STATE_IDLE, mEngine.getScrollState());
+        assertTrue(mEngine.setScrollState(SCROLL_STATE_TOUCH_SCROLL));
+        assertFalse(mEngine.setScrollState(SCROLL_STATE_TOUCH_SCROLL));
+        assertTrue(mEngine.setScrollState(SCROLL_STATE_AUTO_SCROLL));
+        assertEquals(SCROLL_STATE_AUTO_SCROLL, mEngine.getScrollState());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setScrollState_unknownState() {
+        mEngine.setScrollState(SCROLL_STATE_TOUCH_SCROLL | SCROLL_STATE_AUTO_SCROLL);
+    }
+
+    @Test
+    public void animatingFlags_independentOfScrollState() {
+        mEngine.setScrollState(SCROLL_STATE_AUTO_SCROLL);
+        mEngine.setAnimatingOpening();
+        assertTrue(mEngine.isAnimatingOpening());
+        assertFalse(mEngine.isAnimatingClosure());
+
+        mEngine.setAnimatingClosure();
+        assertFalse(mEngine.isAnimatingOpening());
+        assertTrue(mEngine.isAnimatingClosure());
+
+        final int flags = mEngine.getAnimatingFlags();
+        mEngine.clearAnimatingFlags();
+        assertFalse(mEngine.isAnimating());
+        mEngine.setAnimatingFlags(flags);
+        assertTrue(mEngine.isAnimatingClosure());
+
+        assertEquals(SCROLL_STATE_AUTO_SCROLL, mEngine.getScrollState());
+    }
+
+    @Test
+    public void resolveSettleAction() {
+        // Fully opened or closed
+        assertEquals(SETTLE_NONE, mEngine.resolveSettleAction(true, 0f, 5000f));
+        assertEquals(SETTLE_NONE, mEngine.resolveSettleAction(false, 1f, 5000f));
+
+        // Flings
+        assertEquals(SETTLE_OPEN, mEngine.resolveSettleAction(true, 0.1f, 1000f));
+        assertEquals(SETTLE_CLOSE, mEngine.resolveSettleAction(true, 0.9f, -1000f));
+        assertEquals(SETTLE_OPEN, mEngine.resolveSettleAction(false, 0.1f, -1000f));
+        assertEquals(SETTLE_CLOSE, mEngine.resolveSettleAction(false, 0.9f, 1000f));
+
+        // Slow releases
+        assertEquals(SETTLE_OPEN, mEngine.resolveSettleAction(true, 0.5f, 999f));
+        assertEquals(SETTLE_CLOSE, mEngine.resolveSettleAction(true, 0.49f, -999f));
+        assertEquals(SETTLE_OPEN, mEngine.resolveSettleAction(false, 0.5f, 0f));
+        assertEquals(SETTLE_CLOSE, mEngine.resolveSettleAction(false, 0.49f, 0f));
+    }
+
+    @Test
+    public void shouldLockVerticalGesture() {
+        assertTrue(DrawerStateEngine.shouldLockVerticalGesture(false, 0, 3, 20, 8));
+        assertFalse(DrawerStateEngine.shouldLockVerticalGesture(false, 0, 3, 6, 8));
+        assertFalse(DrawerStateEngine.shouldLockVerticalGesture(false, 0, 30, 20, 8));
+    }
+
+    @Test
+    public void shouldLockVerticalGesture_tapOnContentOfOpenDrawer() {
+        // A finger landing on the content view of the open drawer, which is intercepted to close
+        // the drawer on up, must not lose its tracking to a small vertical move.
+        assertFalse(DrawerStateEngine.shouldLockVerticalGesture(true, 1, 3, 20, 8));
+        assertFalse(DrawerStateEngine.shouldLockVerticalGesture(false, 1, 3, 20, 8));
+        assertFalse(DrawerStateEngine.shouldLockVerticalGesture(false, 0.5f, 3, 20, 8));
+        assertFalse(DrawerStateEngine.shouldLockVerticalGesture(true, 0, 3, 20, 8));
+    }
+
+    @Test
+    public void resolveContentVisibility() {
+        // Content of 400px wide laid out in a host from 0 to 400
+        assertEquals(CONTENT_VISIBLE, DrawerStateEngine.resolveContentVisibility(0, 400, 0, 0, 400));
+        assertEquals(CONTENT_PARTIALLY_COVERED,
+                DrawerStateEngine.resolveContentVisibility(0.5f, 400, 0, 0, 400));
+        assertEquals(CONTENT_PARTIALLY_COVERED,
+                DrawerStateEngine.resolveContentVisibility(-120, 400, 0, 0, 400));
+        assertEquals(CONTENT_OCCLUDED, DrawerStateEngine.resolveContentVisibility(400, 400, 0, 0, 400));
+        assertEquals(CONTENT_OCCLUDED, DrawerStateEngine.resolveContentVisibility(-400, 400, 0, 0, 400));
+    }
+
+    @Test
+    public void resolveContentVisibility_contentWiderThanHost() {
+        // Content of 600px wide centered in a host from 0 to 400 is visible as it is laid out.
+        assertEquals(CONTENT_VISIBLE,
+                DrawerStateEngine.resolveContentVisibility(-100, 600, -100, 0, 400));
+        assertEquals(CONTENT_VISIBLE,
+                DrawerStateEngine.resolveContentVisibility(-150, 600, -100, 0, 400));
+        assertEquals(CONTENT_PARTIALLY_COVERED,
+                DrawerStateEngine.resolveContentVisibility(100, 600, -100, 0, 400));
+    }
+
+    @Test
+    public void clampDx() {
+        // Left drawer scrolling between -100 and 0
+        assertEquals(-20, DrawerStateEngine.clampDx(-50, -20, -100, 0));
+        assertEquals(-50, DrawerStateEngine.clampDx(-50, -80, -100, 0));
+        assertEquals(50, DrawerStateEngine.clampDx(-50, 80, -100, 0));
+        // Right drawer scrolling between 500 and 400
+        assertEquals(-100, DrawerStateEngine.clampDx(500, -300, 500, 400));
+        assertEquals(0, DrawerStateEngine.clampDx(500, 10, 500, 400));
+    }
+
+    @Test
+    public void clampDx_subPixel() {
+        assertEquals(-20.25f, DrawerStateEngine.clampDx(-50.5f, -20.25f, -100, 0), 0f);
+        assertEquals(-49.5f, DrawerStateEngine.clampDx(-50.5f, -80f, -100, 0), 0f);
+        assertEquals(-0.75f, DrawerStateEngine.clampDx(400.75f, -3f, 500, 400), 0f);
+    }
+
+    @Test
+    public void clampDx_fuzz() {
+        final Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            final int startLeft = random.nextInt(2001) - 1000;
+            final int finalLeft = random.nextInt(2001) - 1000;
+            final int min = Math.min(startLeft, finalLeft);
+            final int max = Math.max(startLeft, finalLeft);
+            final int left = min + random.nextInt(max - min + 1);
+            final int dx = random.nextInt(4001) - 2000;
+
+            final int newLeft = left + DrawerStateEngine.clampDx(left, dx, startLeft, finalLeft);
+            assertTrue(newLeft >= min && newLeft <= max);
+            if (left + dx >= min && left + dx <= max) {
+                assertEquals(left + dx, newLeft);
+            }
+        }
+    }
+}
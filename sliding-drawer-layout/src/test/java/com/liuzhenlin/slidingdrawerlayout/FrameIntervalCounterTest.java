@@ -0,0 +1,49 @@
+package com.liuzhenlin.slidingdrawerlayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Local unit tests for {@link FrameIntervalCounter}.
+ */
+public class FrameIntervalCounterTest {
+
+    /** Refresh period of a 120 Hz display */
+    private static final long REFRESH_PERIOD = 8_333_333; // ns
+
+    private final FrameIntervalCounter mCounter = new FrameIntervalCounter();
+
+    @Test
+    public void addInterval_countsSlowFrames() {
+        mCounter.setExpectedInterval(REFRESH_PERIOD);
+        for (int i = 0; i < 10; i++) {
+            mCounter.addInterval(REFRESH_PERIOD);
+        }
+        // Two frames missed
+        mCounter.addInterval(3 * REFRESH_PERIOD);
+
+        assertEquals(11, mCounter.getCount());
+        assertEquals(1, mCounter.getSlowCount());
+        assertEquals(13 * REFRESH_PERIOD / 11 / 1e6f, mCounter.getAverageMillis(), 0.001f);
+        assertEquals(3 * REFRESH_PERIOD / 1e6f, mCounter.getMaxMillis(), 0.001f);
+    }
+
+    @Test
+    public void addInterval_ignoresNonPositiveIntervals() {
+        mCounter.addInterval(0);
+        mCounter.addInterval(-REFRESH_PERIOD);
+        assertEquals(0, mCounter.getCount());
+        assertEquals(0f, mCounter.getAverageMillis(), 0f);
+    }
+
+    @Test
+    public void reset() {
+        mCounter.setExpectedInterval(REFRESH_PERIOD);
+        mCounter.addInterval(2 * REFRESH_PERIOD);
+        mCounter.reset();
+        assertEquals(0, mCounter.getCount());
+        assertEquals(0, mCounter.getSlowCount());
+        assertEquals(0f, mCounter.getMaxMillis(), 0f);
+    }
+}
@@ -0,0 +1,70 @@
+package com.liuzhenlin.slidingdrawerlayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link SpringSimulation}.
+ */
+public class SpringSimulationTest {
+
+    private final SpringSimulation mSpring = new SpringSimulation();
+
+    @Test
+    public void update_criticallyDampedComesToRestWithoutOvershoot() {
+        mSpring.start(-600, 0);
+        long time = 0;
+        while (!mSpring.update(time)) {
+            assertTrue(mSpring.getDisplacement() <= 0);
+            time += 16;
+        }
+        assertEquals(0f, mSpring.getDisplacement(), 0f);
+        assertEquals(0f, mSpring.getVelocity(), 0f);
+    }
+
+    @Test
+    public void update_shorterDistanceSettlesSooner() {
+        assertTrue(timeToRest(-60, 0) < timeToRest(-600, 0));
+    }
+
+    @Test
+    public void update_velocityTowardsRestSettlesSooner() {
+        assertTrue(timeToRest(-300, 3000) < timeToRest(-300, 0));
+    }
+
+    @Test
+    public void update_startsFromGivenVelocity() {
+        mSpring.start(-300, 2000);
+        assertFalse(mSpring.update(0));
+        assertEquals(-300f, mSpring.getDisplacement(), 0.01f);
+        assertEquals(2000f, mSpring.getVelocity(), 0.01f);
+    }
+
+    @Test
+    public void update_underdampedOvershoots() {
+        mSpring.setDampingRatio(0.3f);
+        mSpring.start(-300, 0);
+        float max = Float.NEGATIVE_INFINITY;
+        for (long time = 0; !mSpring.update(time); time += 4) {
+            max = Math.max(max, mSpring.getDisplacement());
+        }
+        assertTrue(max > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setStiffness_rejectsNonPositive() {
+        mSpring.setStiffness(0);
+    }
+
+    private long timeToRest(float displacement, float velocity) {
+        mSpring.start(displacement, velocity);
+        long time = 0;
+        while (!mSpring.update(time)) {
+            time += 4;
+        }
+        return time;
+    }
+}
@@ -0,0 +1,63 @@
+package com.liuzhenlin.slidingdrawerlayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link TouchPredictor}.
+ */
+public class TouchPredictorTest {
+
+    /** Touch sampling interval of a 240 Hz panel, rounded to whole milliseconds */
+    private static final int SAMPLE_INTERVAL = 4; // ms
+
+    private final TouchPredictor mPredictor = new TouchPredictor();
+
+    @Test
+    public void predictX_constantVelocity() {
+        for (int i = 0; i < 30; i++) {
+            mPredictor.addSample(100 + 2f * i * SAMPLE_INTERVAL, 1000 + i * SAMPLE_INTERVAL);
+        }
+        // The latest sample is at x = 332, t = 1116.
+        assertEquals(332 + 2 * 16, mPredictor.predictX(1116 + 16), 1f);
+        assertEquals(0f, mPredictor.getMeanError(), 0.5f);
+    }
+
+    @Test
+    public void predictX_notEnoughSamples() {
+        mPredictor.addSample(100, 1000);
+        assertEquals(100f, mPredictor.predictX(1016), 0f);
+        mPredictor.addSample(108, 1004);
+        assertEquals(108f, mPredictor.predictX(1016), 0f);
+    }
+
+    @Test
+    public void predictX_pointerStopped() {
+        for (int i = 0; i < 10; i++) {
+            mPredictor.addSample(100 + 10f * i, 1000 + i * SAMPLE_INTERVAL);
+        }
+        // The pointer rests for a while before it moves again.
+        mPredictor.addSample(190, 1200);
+        assertEquals(190f, mPredictor.predictX(1216), 0f);
+    }
+
+    @Test
+    public void getMeanError_turningPointer() {
+        for (int i = 0; i < 20; i++) {
+            mPredictor.addSample(100 + 8f * i, 1000 + i * SAMPLE_INTERVAL);
+        }
+        // The pointer turns back abruptly.
+        for (int i = 1; i <= 5; i++) {
+            mPredictor.addSample(252 - 8f * i, 1076 + i * SAMPLE_INTERVAL);
+        }
+        assertTrue(mPredictor.getMeanError() > 0);
+
+        mPredictor.restart();
+        assertTrue(mPredictor.getMeanError() > 0);
+
+        mPredictor.reset();
+        assertEquals(0f, mPredictor.getMeanError(), 0f);
+    }
+}
@@ -0,0 +1,81 @@
+package com.liuzhenlin.slidingdrawerlayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Local unit tests for {@link TouchSampleBuffer}.
+ */
+public class TouchSampleBufferTest {
+
+    private static final int CAPACITY = 4;
+
+    private final TouchSampleBuffer mSamples = new TouchSampleBuffer(CAPACITY);
+
+    @Test
+    public void add_keepsSamplesInOrder() {
+        for (int i = 0; i < 3; i++) {
+            mSamples.add(i, 10 * i, 1000 + i);
+        }
+
+        assertEquals(3, mSamples.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, mSamples.getX(i), 0f);
+            assertEquals(10 * i, mSamples.getY(i), 0f);
+            assertEquals(1000 + i, mSamples.getEventTime(i));
+        }
+        assertEquals(2, mSamples.getLatestX(), 0f);
+        assertEquals(20, mSamples.getLatestY(), 0f);
+        assertEquals(1002, mSamples.getLatestEventTime());
+    }
+
+    @Test
+    public void add_overwritesOldestSamplesWhenFull() {
+        // Wrap around the arrays more than once.
+        final int count = 2 * CAPACITY + 1;
+        for (int i = 0; i < count; i++) {
+            mSamples.add(i, 10 * i, 1000 + i);
+        }
+
+        assertEquals(CAPACITY, mSamples.size());
+        assertEquals(CAPACITY, mSamples.capacity());
+        for (int i = 0; i < CAPACITY; i++) {
+            final int sample = count - CAPACITY + i;
+            assertEquals(sample, mSamples.getX(i), 0f);
+            assertEquals(10 * sample, mSamples.getY(i), 0f);
+            assertEquals(1000 + sample, mSamples.getEventTime(i));
+        }
+        assertEquals(count - 1, mSamples.getLatestX(), 0f);
+    }
+
+    @Test
+    public void clear_discardsAllSamples() {
+        for (int i = 0; i < CAPACITY + 1; i++) {
+            mSamples.add(i, 0, 1000 + i);
+        }
+        mSamples.clear();
+        assertEquals(0, mSamples.size());
+
+        mSamples.add(100, 200, 2000);
+        assertEquals(1, mSamples.size());
+        assertEquals(100, mSamples.getX(0), 0f);
+        assertEquals(2000, mSamples.getLatestEventTime());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getX_positionOutOfRange() {
+        mSamples.add(0, 0, 1000);
+        mSamples.getX(1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getLatestX_empty() {
+        mSamples.getLatestX();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_capacityTooSmall() {
+        new TouchSampleBuffer(1);
+    }
+}
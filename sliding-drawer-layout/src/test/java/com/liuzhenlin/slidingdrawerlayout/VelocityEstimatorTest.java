@@ -0,0 +1,109 @@
+package com.liuzhenlin.slidingdrawerlayout;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local unit tests for {@link VelocityEstimator} and the {@link TouchSampleBuffer}
+ * it reads samples from.
+ */
+public class VelocityEstimatorTest {
+
+    /** Touch sampling interval of a 240 Hz panel, rounded to whole milliseconds */
+    private static final int SAMPLE_INTERVAL = 4; // ms
+
+    /** Number of samples batched into each move event at a 60 Hz input dispatch rate */
+    private static final int SAMPLES_PER_EVENT = 4;
+
+    private final TouchSampleBuffer mSamples =
+            new TouchSampleBuffer(TouchSampleBuffer.DEFAULT_CAPACITY);
+    private final VelocityEstimator mEstimator = new VelocityEstimator();
+
+    @Test
+    public void computeXVelocity_constantVelocity() {
+        for (int i = 0; i < 30; i++) {
+            mSamples.add(100 + 2f * i * SAMPLE_INTERVAL, 0, 1000 + i * SAMPLE_INTERVAL);
+        }
+        assertEquals(2000f, mEstimator.computeXVelocity(mSamples, 1000), 1f);
+    }
+
+    @Test
+    public void computeXVelocity_acceleratingPointer() {
+        // x = 0.01 * t^2, whose velocity at t = 116 is 2.32 px/ms
+        for (int i = 0; i < 30; i++) {
+            final int t = i * SAMPLE_INTERVAL;
+            mSamples.add(0.01f * t * t, 0, 1000 + t);
+        }
+        assertEquals(2320f, mEstimator.computeXVelocity(mSamples, 1000), 5f);
+    }
+
+    @Test
+    public void computeXVelocity_pointerStopped() {
+        for (int i = 0; i < 10; i++) {
+            mSamples.add(100 + 10f * i, 0, 1000 + i * SAMPLE_INTERVAL);
+        }
+        // The pointer rests for a while before it is lifted.
+        mSamples.add(190, 0, 1200);
+        assertEquals(0f, mEstimator.computeXVelocity(mSamples, 1000), 0f);
+    }
+
+    @Test
+    public void computeXVelocity_notEnoughSamples() {
+        assertEquals(0f, mEstimator.computeXVelocity(mSamples, 1000), 0f);
+        mSamples.add(100, 0, 1000);
+        assertEquals(0f, mEstimator.computeXVelocity(mSamples, 1000), 0f);
+    }
+
+    @Test
+    public void dragAndRelease_allocatesNothing() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        final long threadId = Thread.currentThread().getId();
+
+        // Warm up, so that class loading and initialization are excluded from the measurement.
+        float velocity = 0;
+        for (int i = 0; i < 100; i++) {
+            velocity += dragAndRelease();
+        }
+
+        // Bytes allocated by the measurement itself
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        final long overhead = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+        start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100; i++) {
+            velocity += dragAndRelease();
+        }
+        final long allocated = threadBean.getThreadAllocatedBytes(threadId) - start - overhead;
+
+        assertEquals(0L, allocated);
+        assertEquals(200 * 2000f, velocity, 200 * 1f);
+    }
+
+    /**
+     * Simulates the sampling done for a drag gesture, from ACTION_DOWN through the ACTION_MOVEs
+     * with historical samples to ACTION_UP, and then estimates the release velocity.
+     */
+    private float dragAndRelease() {
+        long time = 1000;
+        float x = 100;
+
+        mSamples.clear();
+        mSamples.add(x, 500, time);
+        for (int event = 0; event < 60; event++) {
+            for (int i = 0; i < SAMPLES_PER_EVENT; i++) {
+                time += SAMPLE_INTERVAL;
+                x += 2f * SAMPLE_INTERVAL;
+                mSamples.add(x, 500, time);
+            }
+        }
+        return mEstimator.computeXVelocity(mSamples, 1000);
+    }
+}